@@ -0,0 +1,82 @@
+package ajeffrey.teaching.bench;
+
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the JMH benchmarks for the dining, priority, buffer, guard,
+ * list, dictionary and lock packages at several thread counts.
+ * These give a baseline for checking any claims about performance.
+ * <p>Usage: <code>Benchmarks [pattern...]</code>, which runs every
+ * benchmark whose name matches one of the regular expressions (or
+ * every benchmark, if there are none), once for each thread count.
+ * Benchmarks with groups of threads, such as the handoff and
+ * ping-pong benchmarks, run as many groups as fit in the thread
+ * count, rounded up.  The philosopher benchmark sets its own number
+ * of threads from the number of seats, so it is only run once.</p>
+ * <p>The system properties are:</p>
+ * <ul>
+ * <li><code>bench.threads</code>: the thread counts, separated by
+ *   commas, defaulting to 1,2,4,8.</li>
+ * <li><code>bench.warmup</code>: the number of warmup iterations,
+ *   defaulting to 3.</li>
+ * <li><code>bench.iterations</code>: the number of measured
+ *   iterations, defaulting to 5.</li>
+ * <li><code>bench.time</code>: the length of each iteration in
+ *   milliseconds, defaulting to 1000.</li>
+ * <li><code>bench.forks</code>: the number of JVMs to fork for each
+ *   benchmark, defaulting to 1.</li>
+ * </ul>
+ * <p>Each benchmark is run in a forked JVM with
+ * <code>-Dajeffrey.teaching.debug=false</code>, since classes which
+ * print debugging messages are much slower with debugging
+ * enabled.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see PhilosopherReport
+ */
+public class Benchmarks {
+
+    public static void main (final String[] args) throws RunnerException {
+	final String[] threads = System.getProperty ("bench.threads", "1,2,4,8").split (",");
+	final String philosophers = PhilosopherBenchmark.class.getName ();
+	// The benchmark method, as JMH names it
+	final String table = philosophers + ".table";
+	for (int i=0; i < threads.length; i++) {
+	    final ChainedOptionsBuilder options = options (args)
+		.exclude (Pattern.quote (philosophers))
+		.threads (Integer.parseInt (threads[i].trim ()));
+	    new Runner (options.build ()).run ();
+	}
+	if (matches (table, args)) {
+	    new Runner (options (new String[0]).include (Pattern.quote (philosophers)).build ()).run ();
+	}
+    }
+
+    static ChainedOptionsBuilder options (final String[] patterns) {
+	final ChainedOptionsBuilder options = new OptionsBuilder ()
+	    .warmupIterations (Integer.getInteger ("bench.warmup", 3).intValue ())
+	    .measurementIterations (Integer.getInteger ("bench.iterations", 5).intValue ())
+	    .warmupTime (TimeValue.milliseconds (Long.getLong ("bench.time", 1000).longValue ()))
+	    .measurementTime (TimeValue.milliseconds (Long.getLong ("bench.time", 1000).longValue ()))
+	    .forks (Integer.getInteger ("bench.forks", 1).intValue ());
+	for (int i=0; i < patterns.length; i++) { options.include (patterns[i]); }
+	return options;
+    }
+
+    // Would JMH pick out a benchmark method?  It runs a benchmark if any
+    // of the regular expressions is found anywhere in its name.
+    static boolean matches (final String name, final String[] patterns) {
+	if (patterns.length == 0) { return true; }
+	for (int i=0; i < patterns.length; i++) {
+	    if (Pattern.compile (patterns[i]).matcher (name).find ()) { return true; }
+	}
+	return false;
+    }
+
+}
@@ -0,0 +1,89 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.buffer.BlockingBuffer;
+import ajeffrey.teaching.util.buffer.Buffer;
+import ajeffrey.teaching.util.buffer.BufferFactory;
+import ajeffrey.teaching.util.buffer.MpmcBuffer;
+import ajeffrey.teaching.util.buffer.UnsafeBuffer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A benchmark for buffers shared by every thread.
+ * Each <code>putGet</code> puts an element into the buffer and gets
+ * one out, and each <code>putAllDrainTo</code> puts a batch in and
+ * drains a batch out, so the buffer never fills up.
+ * <p>Unsafe buffers cannot be shared, so
+ * <code>unsafePutGet</code> gives each thread a buffer of its own,
+ * which gives a baseline for the cost of synchronization.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class BufferBenchmark {
+
+    static final int CAPACITY = 1024;
+    static final int BATCH = 256;
+
+    static BufferFactory factory (final String impl) {
+	if (impl.equals ("Blocking")) { return BlockingBuffer.factory; }
+	if (impl.equals ("Mpmc")) { return MpmcBuffer.factory; }
+	throw new IllegalArgumentException (impl);
+    }
+
+    /**
+     * The buffer shared by every thread.
+     */
+    @State (Scope.Benchmark)
+    public static class Shared {
+	@Param ({ "Blocking", "Mpmc" })
+	public String impl;
+
+	Buffer buffer;
+
+	@Setup
+	public void setUp () { buffer = factory (impl).build (CAPACITY); }
+    }
+
+    /**
+     * The batch and unsafe buffer used by one thread.
+     */
+    @State (Scope.Thread)
+    public static class Local {
+	final Object[] batch = new Object[BATCH];
+	final Buffer unsafe = UnsafeBuffer.factory.build (CAPACITY);
+    }
+
+    @Benchmark
+    public Object putGet (final Shared shared) {
+	shared.buffer.put (shared);
+	return shared.buffer.get ();
+    }
+
+    @Benchmark
+    public int putAllDrainTo (final Shared shared, final Local local) {
+	Arrays.fill (local.batch, shared);
+	final int count = shared.buffer.putAll (local.batch, 0, BATCH);
+	return shared.buffer.drainTo (local.batch, 0, count);
+    }
+
+    @Benchmark
+    public Object unsafePutGet (final Local local) {
+	local.unsafe.put (local);
+	return local.unsafe.get ();
+    }
+
+}
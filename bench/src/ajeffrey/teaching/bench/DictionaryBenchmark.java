@@ -0,0 +1,60 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.Dictionary;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A benchmark for immutable dictionaries.
+ * Dictionaries are values, so each thread has its own, which starts
+ * off empty at each iteration.  Each operation adds one of
+ * <code>size</code> keys, cycling through them, and then looks up
+ * another.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class DictionaryBenchmark {
+
+    @Param ({ "1024" })
+    public int size;
+
+    protected Integer[] keys;
+    protected Dictionary dictionary;
+    protected int next;
+
+    @Setup
+    public void setUpKeys () {
+	keys = new Integer[size];
+	for (int i=0; i < size; i++) { keys[i] = Integer.valueOf (i); }
+    }
+
+    @Setup (Level.Iteration)
+    public void setUp () {
+	dictionary = Dictionary.empty;
+	next = 0;
+    }
+
+    @Benchmark
+    public Object addGet () {
+	final Integer key = keys[next];
+	next = (next + 1) % keys.length;
+	dictionary = dictionary.add (key, key);
+	return dictionary.get (keys[(next * 7) % keys.length]);
+    }
+
+}
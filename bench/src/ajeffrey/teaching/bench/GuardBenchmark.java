@@ -0,0 +1,99 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.guard.Guard;
+import ajeffrey.teaching.util.guard.GuardFactory;
+import ajeffrey.teaching.util.guard.SpinGuard;
+import ajeffrey.teaching.util.time.TimeoutException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A benchmark for guards used to hand control back and forth.
+ * Each group is a pair of threads with its own two guards: one
+ * thread sets the first guard and waits for the second, and the
+ * other waits for the first and sets the second.  This measures
+ * the latency of waking a thread up.  Both threads count towards
+ * the score for the group, so each round trip counts twice.
+ * <p>Threads wait with a timeout, so that they can notice when
+ * an iteration has ended, and the guards are reset before each
+ * iteration.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@State (Scope.Group)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class GuardBenchmark {
+
+    static final long TIMEOUT = 10;
+
+    @Param ({ "Guard", "SpinGuard" })
+    public String impl;
+
+    protected Guard ping;
+    protected Guard pong;
+
+    static GuardFactory factory (final String impl) {
+	if (impl.equals ("Guard")) { return Guard.factory; }
+	if (impl.equals ("SpinGuard")) { return SpinGuard.factory; }
+	throw new IllegalArgumentException (impl);
+    }
+
+    @Setup
+    public void setUp () {
+	ping = factory (impl).build (false);
+	pong = factory (impl).build (false);
+    }
+
+    @Setup (Level.Iteration)
+    public void reset () {
+	ping.setValue (false);
+	pong.setValue (false);
+    }
+
+    // Wait for the guard to be true then reset it, returning false
+    // if we timed out first
+    static boolean await (final Guard guard) throws InterruptedException {
+	while (!guard.getValue ()) {
+	    try {
+		guard.waitForTrue (TIMEOUT);
+	    } catch (final TimeoutException ex) {
+		return false;
+	    }
+	}
+	guard.setValue (false);
+	return true;
+    }
+
+    @Benchmark
+    @Group ("pingPong")
+    @GroupThreads (1)
+    public boolean ping () throws InterruptedException {
+	ping.setValue (true);
+	return await (pong);
+    }
+
+    @Benchmark
+    @Group ("pingPong")
+    @GroupThreads (1)
+    public boolean pong () throws InterruptedException {
+	if (!await (ping)) { return false; }
+	pong.setValue (true);
+	return true;
+    }
+
+}
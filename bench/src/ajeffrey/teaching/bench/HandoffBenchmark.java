@@ -0,0 +1,102 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.buffer.BlockingBuffer;
+import ajeffrey.teaching.util.buffer.Buffer;
+import ajeffrey.teaching.util.buffer.BufferFactory;
+import ajeffrey.teaching.util.buffer.SpscBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A benchmark for buffers used as a handoff between a producer and
+ * a consumer thread.  Each group is a producer/consumer pair with
+ * its own buffer, so this suits single-producer single-consumer
+ * buffers.
+ * <p>Producers only put when <code>size () &lt; capacity ()</code>
+ * and consumers only get when <code>size () &gt; 0</code>, which is
+ * safe because each buffer has only one producer and one consumer.
+ * A thread which finds its buffer full (or empty) yields.  Those
+ * yields count towards the score for the group, so the score to read
+ * is the <code>handoffs</code> counter, which only counts elements
+ * which reached the consumer.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@State (Scope.Group)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class HandoffBenchmark {
+
+    static final int CAPACITY = 1024;
+    static final Object ELEMENT = new Object ();
+
+    @Param ({ "Spsc", "Blocking" })
+    public String impl;
+
+    protected Buffer buffer;
+    protected int capacity;
+
+    static BufferFactory factory (final String impl) {
+	if (impl.equals ("Spsc")) { return SpscBuffer.factory; }
+	if (impl.equals ("Blocking")) { return BlockingBuffer.factory; }
+	throw new IllegalArgumentException (impl);
+    }
+
+    @Setup
+    public void setUp () {
+	buffer = factory (impl).build (CAPACITY);
+	capacity = buffer.capacity ();
+    }
+
+    /**
+     * The number of elements a consumer has got.
+     */
+    @AuxCounters (AuxCounters.Type.OPERATIONS)
+    @State (Scope.Thread)
+    public static class Handoffs {
+	public long handoffs;
+
+	@Setup (Level.Iteration)
+	public void reset () { handoffs = 0; }
+    }
+
+    @Benchmark
+    @Group ("handoff")
+    @GroupThreads (1)
+    public void put () {
+	if (buffer.size () < capacity) {
+	    buffer.put (ELEMENT);
+	} else {
+	    Thread.yield ();
+	}
+    }
+
+    @Benchmark
+    @Group ("handoff")
+    @GroupThreads (1)
+    public Object get (final Handoffs counter) {
+	if (buffer.size () > 0) {
+	    counter.handoffs++;
+	    return buffer.get ();
+	} else {
+	    Thread.yield ();
+	    return null;
+	}
+    }
+
+}
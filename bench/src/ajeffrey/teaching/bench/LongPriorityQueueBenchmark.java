@@ -0,0 +1,60 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.priority.LongHeapPriorityQueue;
+import ajeffrey.teaching.util.priority.LongPriorityQueue;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A benchmark for priority queues with primitive long priorities,
+ * shared by every thread.
+ * The queue starts off holding <code>size</code> entries with random
+ * priorities, and each operation adds an entry with a random priority
+ * and gets the first entry.  The entries are built in advance, so
+ * this measures the queue rather than boxing.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class LongPriorityQueueBenchmark {
+
+    static final Object[] ENTRIES = new Object[1024];
+    static {
+	for (int i=0; i < ENTRIES.length; i++) { ENTRIES[i] = Integer.valueOf (i); }
+    }
+
+    @Param ({ "100", "100000" })
+    public int size;
+
+    protected LongPriorityQueue queue;
+
+    @Setup
+    public void setUp () {
+	queue = LongHeapPriorityQueue.factory.build ();
+	for (int i=0; i < size; i++) {
+	    queue.add (ThreadLocalRandom.current ().nextLong (), ENTRIES[i % ENTRIES.length]);
+	}
+    }
+
+    @Benchmark
+    public Object addGet () throws InterruptedException {
+	final int i = ThreadLocalRandom.current ().nextInt (ENTRIES.length);
+	queue.add (ThreadLocalRandom.current ().nextLong (), ENTRIES[i]);
+	return queue.get ();
+    }
+
+}
@@ -0,0 +1,44 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.buffer.LongRingBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A benchmark for ring buffers of primitive longs shared by every
+ * thread.  Each operation puts a timestamp into the buffer and gets
+ * one out, with no boxing.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class LongRingBufferBenchmark {
+
+    static final int CAPACITY = 1024;
+
+    protected LongRingBuffer buffer;
+
+    @Setup
+    public void setUp () {
+	buffer = LongRingBuffer.factory.build (CAPACITY);
+    }
+
+    @Benchmark
+    public long putGet () {
+	buffer.put (System.nanoTime ());
+	return buffer.get ();
+    }
+
+}
@@ -0,0 +1,78 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.list.Iterator;
+import ajeffrey.teaching.util.list.MutableList;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A benchmark for mutable lists shared by every thread.
+ * Each <code>add</code> adds an element to a list which starts
+ * off empty at each iteration, and each <code>iterate</code>
+ * iterates over a list of <code>size</code> elements.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class MutableListBenchmark {
+
+    /**
+     * A list which grows during each iteration.
+     */
+    @State (Scope.Benchmark)
+    public static class Growing {
+	MutableList list;
+
+	@Setup (Level.Iteration)
+	public void setUp () { list = MutableList.factory.build (); }
+
+	// Let the (possibly very long) list be garbage collected
+	@TearDown (Level.Iteration)
+	public void tearDown () { list = null; }
+    }
+
+    /**
+     * A list which stays the same size.
+     */
+    @State (Scope.Benchmark)
+    public static class Fixed {
+	@Param ({ "100" })
+	public int size;
+
+	MutableList list;
+
+	@Setup
+	public void setUp () {
+	    list = MutableList.factory.build ();
+	    for (int i=0; i < size; i++) { list.add (Integer.valueOf (i)); }
+	}
+    }
+
+    @Benchmark
+    public void add (final Growing growing) {
+	growing.list.add (growing);
+    }
+
+    @Benchmark
+    public void iterate (final Fixed fixed, final Blackhole sink) {
+	for (final Iterator i = fixed.list.iterator (); i.hasNext ();) {
+	    sink.consume (i.next ());
+	}
+    }
+
+}
@@ -0,0 +1,89 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.dining.ChandyMisraPhilosopher;
+import ajeffrey.teaching.dining.Delay;
+import ajeffrey.teaching.dining.DiningResult;
+import ajeffrey.teaching.dining.DiningTable;
+import ajeffrey.teaching.dining.OrderedPhilosopher;
+import ajeffrey.teaching.dining.PhilosopherFactory;
+import ajeffrey.teaching.dining.TokenPhilosopher;
+import ajeffrey.teaching.dining.TokenPool;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * A benchmark for dining philosophers.
+ * Each operation seats a table of philosophers, one thread per seat,
+ * and runs it for a fixed time.  The philosophers do not think or eat
+ * for any time at all, so this measures the cost of coordination.
+ * The score to read is the <code>meals</code> counter, which counts
+ * meals per second, including the time taken to seat and stop each
+ * table.  The number of seats, not the JMH thread count, sets how
+ * many threads compete.
+ * Token philosophers get one token fewer than the number of seats.
+ * Deadlocking philosophers are not benchmarked, since any
+ * philosophers who deadlock never leave the table.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+@Threads (1)
+public class PhilosopherBenchmark {
+
+    // How long to run each table for, in milliseconds
+    static final long DURATION = 1000;
+
+    @Param ({ "Ordered", "Token", "ChandyMisra" })
+    public String philosophers;
+
+    @Param ({ "4", "16", "64" })
+    public int seats;
+
+    /**
+     * The number of meals eaten.
+     */
+    @AuxCounters (AuxCounters.Type.OPERATIONS)
+    @State (Scope.Thread)
+    public static class Meals {
+	public long meals;
+
+	@Setup (Level.Iteration)
+	public void reset () { meals = 0; }
+    }
+
+    protected PhilosopherFactory factory () {
+	if (philosophers.equals ("Ordered")) { return OrderedPhilosopher.factory; }
+	if (philosophers.equals ("Token")) {
+	    return TokenPhilosopher.withPool (TokenPool.factory.build (seats - 1));
+	}
+	if (philosophers.equals ("ChandyMisra")) { return ChandyMisraPhilosopher.factory; }
+	throw new IllegalArgumentException (philosophers);
+    }
+
+    @Benchmark
+    public DiningResult table (final Meals meals) throws InterruptedException {
+	final DiningResult result = DiningTable.factory
+	    .build (factory ().withDelays (Delay.none, Delay.none), seats)
+	    .runFor (DURATION);
+	if (result.stuck () > 0) { throw new IllegalStateException (philosophers + " got stuck"); }
+	meals.meals += result.meals ();
+	return result;
+    }
+
+}
@@ -0,0 +1,148 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.dining.ChandyMisraPhilosopher;
+import ajeffrey.teaching.dining.Delay;
+import ajeffrey.teaching.dining.DiningResult;
+import ajeffrey.teaching.dining.DiningTable;
+import ajeffrey.teaching.dining.Fork;
+import ajeffrey.teaching.dining.OrderedPhilosopher;
+import ajeffrey.teaching.dining.Philosopher;
+import ajeffrey.teaching.dining.PhilosopherFactory;
+import ajeffrey.teaching.dining.ThreadProvider;
+import ajeffrey.teaching.dining.TokenPhilosopher;
+import ajeffrey.teaching.dining.TokenPool;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reports on the dining philosophers at scales and in ways which
+ * do not fit in a JMH benchmark.  There are two reports:
+ * <ul>
+ * <li><code>PhilosopherReport fairness [seconds]</code> seats tables
+ *   of 4, 64 and 1024 ordered, token (with one token fewer than the
+ *   number of seats) and Chandy-Misra philosophers, and reports the
+ *   meals eaten per second, the fairness, and the percentiles of how
+ *   long philosophers waited to eat.  Each table is run twice: once
+ *   with the classic random delays, and once with no delays at all.
+ *   Runs default to 10 seconds.</li>
+ * <li><code>PhilosopherReport threads [seats [seconds]]</code> seats
+ *   a large table of token philosophers on platform threads, virtual
+ *   threads and a cached thread pool in turn, and reports the heap
+ *   used, the number of live platform threads and the meals eaten per
+ *   second.  The forks are built by <code>Fork.factory</code>, so
+ *   virtual threads are not pinned to their carriers while eating.
+ *   Each provider's philosophers have all left the table before the
+ *   next one starts.  Defaults to 10000 seats for 10 seconds.</li>
+ * </ul>
+ * <p>Run with <code>-Dajeffrey.teaching.debug=false</code>, since
+ * the philosophers are much slower with debugging enabled.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see PhilosopherBenchmark
+ * @see DiningTable
+ * @see ThreadProvider
+ */
+public class PhilosopherReport {
+
+    static final int[] SEATS = { 4, 64, 1024 };
+
+    // How long to wait for each philosopher to stop, in milliseconds
+    static final long LEAVE_TIMEOUT = 10000;
+
+    public static void main (final String[] args) throws InterruptedException {
+	final String report = (args.length > 0) ? args[0] : "fairness";
+	if (report.equals ("fairness")) {
+	    final long seconds = (args.length > 1) ? Long.parseLong (args[1]) : 10;
+	    fairness ("classic", Delay.classic, seconds);
+	    fairness ("no delay", Delay.none, seconds);
+	} else if (report.equals ("threads")) {
+	    final int seats = (args.length > 1) ? Integer.parseInt (args[1]) : 10000;
+	    final long seconds = (args.length > 2) ? Long.parseLong (args[2]) : 10;
+	    final ExecutorService pool = Executors.newCachedThreadPool ();
+	    try {
+		threads (ThreadProvider.platform, seats, seconds);
+		threads (ThreadProvider.virtual, seats, seconds);
+		threads (ThreadProvider.executor (pool), seats, seconds);
+	    } finally {
+		pool.shutdownNow ();
+	    }
+	} else {
+	    System.err.println ("Usage: PhilosopherReport fairness [seconds]");
+	    System.err.println ("       PhilosopherReport threads [seats [seconds]]");
+	}
+    }
+
+    static void fairness (final String mode, final Delay delay, final long seconds) 
+	throws InterruptedException 
+    {
+	for (int i=0; i < SEATS.length; i++) {
+	    final int seats = SEATS[i];
+	    fairness ("Ordered", mode, OrderedPhilosopher.factory.withDelays (delay, delay), seats, seconds);
+	    fairness ("Token", mode, 
+		      TokenPhilosopher.withPool (TokenPool.factory.build (seats - 1)).withDelays (delay, delay), 
+		      seats, seconds);
+	    fairness ("Chandy-Misra", mode, ChandyMisraPhilosopher.factory.withDelays (delay, delay), seats, seconds);
+	}
+    }
+
+    static void fairness 
+	(final String label, final String mode, final PhilosopherFactory factory, 
+	 final int seats, final long seconds) 
+	throws InterruptedException 
+    {
+	final DiningResult result = DiningTable.factory.build (factory, seats).runFor (seconds * 1000);
+	System.out.println (label + " (" + mode + "): " + seats + " seats, " +
+			    result.mealsPerSecond () + " meals/sec, fairness " + result.fairness () +
+			    ", wait p50/p99/p999 " + result.waitTimes ().percentile (50) +
+			    "/" + result.waitTimes ().percentile (99) +
+			    "/" + result.waitTimes ().percentile (99.9) + "ns");
+    }
+
+    static void threads (final ThreadProvider threads, final int seats, final long seconds) 
+	throws InterruptedException 
+    {
+	final long heapBefore = usedHeap ();
+	// A table of n philosophers with n-1 tokens cannot deadlock
+	final PhilosopherFactory factory =
+	    TokenPhilosopher.withPool (TokenPool.factory.build (seats - 1)).withThreads (threads);
+	final Comparable[] forks = new Comparable[seats];
+	for (int i=0; i < seats; i++) {
+	    forks[i] = Fork.factory.build ("Fork " + i);
+	}
+	final Philosopher[] philosophers = new Philosopher[seats];
+	for (int i=0; i < seats; i++) {
+	    philosophers[i] = factory.build (forks[i], forks[(i + 1) % seats], "Philosopher " + i);
+	}
+	for (int i=0; i < seats; i++) {
+	    philosophers[i].start ();
+	}
+	Thread.sleep (seconds * 1000);
+	final long heap = usedHeap () - heapBefore;
+	final int liveThreads = ManagementFactory.getThreadMXBean ().getThreadCount ();
+	long meals = 0;
+	for (int i=0; i < seats; i++) {
+	    philosophers[i].stop ();
+	    meals += philosophers[i].meals ();
+	}
+	System.out.println (threads + ": " + seats + " seats, " +
+			    (heap / 1024) + " KB heap, " +
+			    liveThreads + " platform threads, " +
+			    ((double)meals / seconds) + " meals/sec");
+	// Wait for every philosopher to leave the table, so that their
+	// threads and heap are not counted against the next provider
+	for (int i=0; i < seats; i++) {
+	    if (!philosophers[i].join (LEAVE_TIMEOUT)) {
+		System.out.println ("  " + philosophers[i] + " did not leave the table");
+	    }
+	}
+    }
+
+    static long usedHeap () {
+	System.gc ();
+	final Runtime runtime = Runtime.getRuntime ();
+	return runtime.totalMemory () - runtime.freeMemory ();
+    }
+
+}
@@ -0,0 +1,90 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.priority.HeapPriorityQueue;
+import ajeffrey.teaching.util.priority.PessimisticPriorityQueue;
+import ajeffrey.teaching.util.priority.PriorityQueue;
+import ajeffrey.teaching.util.priority.PriorityQueueFactory;
+import ajeffrey.teaching.util.priority.SkipListPriorityQueue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A benchmark for priority queues shared by every thread.
+ * The queue starts off holding <code>size</code> random entries.
+ * Each <code>addGet</code> adds a random entry and gets the first
+ * entry, and each <code>addAllDrainTo</code> adds a batch of
+ * random entries and drains a batch, so the queue stays the same
+ * size throughout.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class PriorityQueueBenchmark {
+
+    static final int BATCH = 16;
+
+    @Param ({ "Pessimistic", "Heap", "SkipList" })
+    public String impl;
+
+    @Param ({ "100", "10000" })
+    public int size;
+
+    protected PriorityQueue queue;
+
+    static PriorityQueueFactory factory (final String impl) {
+	if (impl.equals ("Pessimistic")) { return PessimisticPriorityQueue.factory; }
+	if (impl.equals ("Heap")) { return HeapPriorityQueue.factory; }
+	if (impl.equals ("SkipList")) { return SkipListPriorityQueue.factory; }
+	throw new IllegalArgumentException (impl);
+    }
+
+    @Setup
+    public void setUp () {
+	queue = factory (impl).build ();
+	for (int i=0; i < size; i++) {
+	    queue.add (Integer.valueOf (ThreadLocalRandom.current ().nextInt ()));
+	}
+    }
+
+    /**
+     * The batches used by one thread.
+     */
+    @State (Scope.Thread)
+    public static class Batch {
+	final Comparable[] entries = new Comparable[BATCH];
+	final ArrayList drained = new ArrayList (BATCH);
+    }
+
+    @Benchmark
+    public Object addGet () throws InterruptedException {
+	queue.add (Integer.valueOf (ThreadLocalRandom.current ().nextInt ()));
+	return queue.get ();
+    }
+
+    @Benchmark
+    public int addAllDrainTo (final Batch batch) throws InterruptedException {
+	for (int i=0; i < BATCH; i++) {
+	    batch.entries[i] = Integer.valueOf (ThreadLocalRandom.current ().nextInt ());
+	}
+	queue.addAll (batch.entries);
+	batch.drained.clear ();
+	queue.drainTo (batch.drained, BATCH);
+	return batch.drained.size ();
+    }
+
+}
@@ -0,0 +1,85 @@
+package ajeffrey.teaching.bench;
+
+import ajeffrey.teaching.util.lock.ReadWriteLock;
+import ajeffrey.teaching.util.lock.ReadWriteLockFactory;
+import ajeffrey.teaching.util.lock.StripedReadWriteLock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A benchmark for read/write locks shared by every thread, with a
+ * read-heavy workload.
+ * Each operation either takes the write lock and updates a counter,
+ * or (much more often) takes the read lock and reads the counter.
+ * In optimistic mode, reads first try an optimistic read, and only
+ * take the read lock if a writer got in.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (value = 1, jvmArgsAppend = "-Dajeffrey.teaching.debug=false")
+public class ReadWriteLockBenchmark {
+
+    @Param ({ "ReadWriteLock", "StripedReadWriteLock" })
+    public String impl;
+
+    @Param ({ "1" })
+    public int writePercent;
+
+    @Param ({ "false", "true" })
+    public boolean optimistic;
+
+    protected ReadWriteLock lock;
+    // Volatile, since optimistic reads need it to be
+    protected volatile long counter;
+
+    static ReadWriteLockFactory factory (final String impl) {
+	if (impl.equals ("ReadWriteLock")) { return ReadWriteLock.factory; }
+	if (impl.equals ("StripedReadWriteLock")) { return StripedReadWriteLock.factory; }
+	throw new IllegalArgumentException (impl);
+    }
+
+    @Setup
+    public void setUp () {
+	lock = factory (impl).build ();
+	counter = 0;
+    }
+
+    @Benchmark
+    public long readWrite () throws InterruptedException {
+	if (ThreadLocalRandom.current ().nextInt (100) < writePercent) {
+	    lock.acquireWriteLock ();
+	    try {
+		return ++counter;
+	    } finally {
+		lock.releaseWriteLock ();
+	    }
+	} else {
+	    if (optimistic) {
+		final long stamp = lock.tryOptimisticRead ();
+		final long result = counter;
+		if (lock.validate (stamp)) { return result; }
+	    }
+	    lock.acquireReadLock ();
+	    try {
+		return counter;
+	    } finally {
+		lock.releaseReadLock ();
+	    }
+	}
+    }
+
+}
@@ -25,6 +25,17 @@ public interface Debug extends DebugStream {
      */
     Debug out = new DebugImpl ();
 
+    /**
+     * Whether debugging is enabled.
+     * This is true unless the system property
+     * <code>ajeffrey.teaching.debug</code> is <code>false</code>.
+     * Since it is a static final field, the JIT treats it as a constant,
+     * so when debugging is disabled any code guarded by
+     * <code>if (Debug.enabled)</code> is removed entirely, including
+     * building the strings for debugging messages.
+     */
+    boolean enabled = !"false".equals (System.getProperty ("ajeffrey.teaching.debug"));
+
     /**
      * Adds a new debug factory.
      * This factory will be used to build new debug
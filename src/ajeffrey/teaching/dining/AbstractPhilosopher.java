@@ -0,0 +1,128 @@
+package ajeffrey.teaching.dining;
+
+import ajeffrey.teaching.util.histogram.Histogram;
+import ajeffrey.teaching.util.time.TimingWheel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The common parts of our philosophers: running on a thread
+ * from a ThreadProvider, picking up and putting down forks,
+ * counting meals and sleeping.
+ */
+abstract class AbstractPhilosopher implements Runnable, Philosopher {
+
+    // The states of a philosopher
+    static final int WAITING = 0;
+    static final int RUNNING = 1;
+    static final int STOPPED = 2;
+
+    final protected String name;
+    final protected ThreadProvider threads;
+    final protected Delay think;
+    final protected Delay eat;
+    final protected TimingWheel timer;
+    final protected AtomicInteger state = new AtomicInteger (WAITING);
+    final protected CountDownLatch stopped = new CountDownLatch (1);
+    protected volatile Future running;
+    protected volatile long meals = 0;
+    final protected Histogram waitTimes = Histogram.factory.build ();
+    protected long hungrySince = -1;
+
+    protected AbstractPhilosopher (final String name, final PhilosopherSettings settings) {
+	this.name = name;
+	this.threads = settings.threads;
+	this.think = settings.think;
+	this.eat = settings.eat;
+	this.timer = settings.timer;
+    }
+
+    public void start () {
+	running = threads.start (new Runnable () {
+		public void run () {
+		    if (state.compareAndSet (WAITING, RUNNING)) {
+			try {
+			    AbstractPhilosopher.this.run ();
+			} finally {
+			    state.set (STOPPED);
+			    stopped.countDown ();
+			}
+		    }
+		}
+	    }, name);
+    }
+
+    public void stop () {
+	final Future running = this.running;
+	if (running != null) { running.cancel (true); }
+	// If we never got going, we never will
+	if (state.compareAndSet (WAITING, STOPPED)) { stopped.countDown (); }
+    }
+
+    public boolean join (final long timeout) throws InterruptedException {
+	return stopped.await (timeout, TimeUnit.MILLISECONDS);
+    }
+
+    public long meals () {
+	return meals;
+    }
+
+    public Histogram waitTimes () {
+	return waitTimes;
+    }
+
+    // The following methods are only ever called by the 
+    // philosopher's own thread.
+
+    // Called when trying to pick up the forks.  If the philosopher
+    // gives up (for example for lack of a token) and tries again
+    // later, they are still waiting from the first attempt.
+    protected void triesToEat () {
+	if (hungrySince < 0) { hungrySince = System.nanoTime (); }
+    }
+
+    // Called when starting to eat
+    protected void startsEating () {
+	waitTimes.record (System.nanoTime () - hungrySince);
+	hungrySince = -1;
+    }
+
+    // Called when finishing eating
+    protected void ate () {
+	meals = meals + 1;
+    }
+
+    // Pick up a fork, blocking while a neighbour holds it.  The lock
+    // comes from the factory (see AbstractPhilosopherFactory.lockFor),
+    // and is never a monitor, so it does not pin a virtual thread.
+    protected void pickUp (final ReentrantLock fork) throws InterruptedException {
+	fork.lockInterruptibly ();
+    }
+
+    protected void putDown (final ReentrantLock fork) {
+	fork.unlock ();
+    }
+
+    // Sleep for the next delay from a distribution.  Even a zero
+    // delay checks for interrupts, so CPU-bound philosophers can
+    // still be stopped.
+    protected void delay (final Delay delay) throws InterruptedException {
+	final long nanos = delay.next ();
+	if (timer != null) {
+	    timer.sleep (nanos);
+	} else if (nanos > 0) {
+	    Thread.sleep (nanos / 1000000L, (int)(nanos % 1000000L));
+	} else if (Thread.interrupted ()) {
+	    throw new InterruptedException ();
+	}
+    }
+
+    public String toString () {
+	return name;
+    }
+
+}
@@ -0,0 +1,55 @@
+package ajeffrey.teaching.dining;
+
+import ajeffrey.teaching.util.time.TimingWheel;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The common parts of our philosopher factories.
+ */
+abstract class AbstractPhilosopherFactory implements PhilosopherFactory {
+
+    final protected PhilosopherSettings settings;
+    // The locks for forks which were not built by Fork.factory, so
+    // that neighbours built by this factory share a lock.  Only used
+    // while building philosophers, never while they eat.
+    final protected Map locks = new IdentityHashMap ();
+
+    protected AbstractPhilosopherFactory (final PhilosopherSettings settings) {
+	this.settings = settings;
+    }
+
+    protected abstract PhilosopherFactory withSettings (PhilosopherSettings settings);
+
+    // The lock which philosophers built by this factory use for a fork
+    protected ReentrantLock lockFor (final Object fork) {
+	if (fork instanceof ForkImpl) { return ((ForkImpl)fork).lock; }
+	synchronized (locks) {
+	    ReentrantLock result = (ReentrantLock)(locks.get (fork));
+	    if (result == null) {
+		result = new ReentrantLock ();
+		locks.put (fork, result);
+	    }
+	    return result;
+	}
+    }
+
+    public PhilosopherFactory withThreads (final ThreadProvider threads) {
+	return withSettings (settings.withThreads (threads));
+    }
+
+    public PhilosopherFactory withDelays (final Delay think, final Delay eat) {
+	return withSettings (settings.withDelays (think, eat));
+    }
+
+    public PhilosopherFactory withTimer (final TimingWheel timer) {
+	return withSettings (settings.withTimer (timer));
+    }
+
+    public PhilosopherFactory newTable () {
+	return withSettings (settings);
+    }
+
+}
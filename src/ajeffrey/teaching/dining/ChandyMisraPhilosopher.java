@@ -0,0 +1,250 @@
+package ajeffrey.teaching.dining;
+
+import ajeffrey.teaching.debug.Debug;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A philosopher from the dining philosophers problem, using
+ * the Chandy-Misra solution.
+ * Rather than locking forks, neighbouring philosophers pass forks
+ * and requests for forks to each other as messages, each philosopher
+ * having its own mailbox.  Each fork is either clean or dirty:
+ * <ul>
+ * <li>a fork becomes dirty when it is eaten with;</li>
+ * <li>a philosopher who is asked for a dirty fork cleans it and
+ *   hands it over (unless they are eating with it);</li>
+ * <li>a philosopher who is asked for a clean fork keeps it until
+ *   they have eaten.</li>
+ * </ul>
+ * For each fork there is one request token, held by whichever
+ * neighbour does not have the fork, and a hungry philosopher sends
+ * the token to ask for the fork.  Initially every fork is dirty and
+ * held by whichever of its two philosophers was built first, which
+ * makes the precedence graph acyclic, so there is no deadlock and
+ * no philosopher starves.  Each meal costs at most two requests and
+ * two fork messages, however many philosophers there are, and there
+ * is no lock or counter shared by the whole table.
+ * <p>Neighbours are found by building philosophers which share a fork
+ * object (compared by identity): the first philosopher built with a
+ * fork waits for the second.  Only philosophers built by the same
+ * factory are paired, so build each table with a factory from
+ * <code>newTable</code>, otherwise two tables which happen to share
+ * fork objects (such as interned strings) are tangled together.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface ChandyMisraPhilosopher {
+
+    /**
+     * A factory for building Chandy-Misra philosophers.
+     */
+    PhilosopherFactory factory
+	= new ChandyMisraPhilosopherFactoryImpl (PhilosopherSettings.initial);
+
+}
+
+class ChandyMisraPhilosopherFactoryImpl extends AbstractPhilosopherFactory {
+
+    // Forks which have only been given to one philosopher built by
+    // this factory so far, mapped to that philosopher's end of the
+    // fork.  Each table has its own factory, and so its own map.
+    final protected Map unpaired = new IdentityHashMap ();
+
+    protected ChandyMisraPhilosopherFactoryImpl (final PhilosopherSettings settings) {
+	super (settings);
+    }
+
+    public Philosopher build 
+	(final Comparable lhFork, final Comparable rhFork, final String name) 
+    {
+	final ChandyMisraPhilosopherImpl result = 
+	    new ChandyMisraPhilosopherImpl (lhFork, rhFork, name, settings);
+	synchronized (unpaired) {
+	    pair (result.lhEnd);
+	    pair (result.rhEnd);
+	}
+	return result;
+    }
+
+    protected void pair (final ChandyMisraForkEnd end) {
+	final ChandyMisraForkEnd first = (ChandyMisraForkEnd)(unpaired.remove (end.fork));
+	if (first == null) {
+	    // We are the first to be given this fork, so we hold it
+	    unpaired.put (end.fork, end);
+	    end.holding = true;
+	    end.dirty = true;
+	} else {
+	    // Our neighbour holds the fork, so we hold the request token
+	    first.opposite = end;
+	    end.opposite = first;
+	    end.token = true;
+	}
+    }
+
+    protected PhilosopherFactory withSettings (final PhilosopherSettings settings) {
+	return new ChandyMisraPhilosopherFactoryImpl (settings);
+    }
+
+}
+
+/**
+ * One philosopher's end of a fork.  All fields apart from the
+ * final ones are only touched by the philosopher's own thread
+ * (or before the philosopher is started).
+ */
+class ChandyMisraForkEnd {
+
+    final protected Comparable fork;
+    final protected ChandyMisraPhilosopherImpl philosopher;
+    final protected ChandyMisraMessage request;
+    final protected ChandyMisraMessage handOver;
+    protected ChandyMisraForkEnd opposite;
+    protected boolean holding = false;
+    protected boolean dirty = false;
+    protected boolean token = false;
+
+    protected ChandyMisraForkEnd 
+	(final Comparable fork, final ChandyMisraPhilosopherImpl philosopher) 
+    {
+	this.fork = fork;
+	this.philosopher = philosopher;
+	// There is only one request token and one fork, so each
+	// message is in at most one mailbox at a time, and can be reused.
+	this.request = new ChandyMisraMessage (this, true);
+	this.handOver = new ChandyMisraMessage (this, false);
+    }
+
+}
+
+/**
+ * A message, addressed to the end of the fork it is about.
+ */
+class ChandyMisraMessage {
+
+    final protected ChandyMisraForkEnd to;
+    final protected boolean isRequest;
+
+    protected ChandyMisraMessage (final ChandyMisraForkEnd to, final boolean isRequest) {
+	this.to = to;
+	this.isRequest = isRequest;
+    }
+
+}
+
+class ChandyMisraPhilosopherImpl extends AbstractPhilosopher {
+
+    final protected ChandyMisraForkEnd lhEnd;
+    final protected ChandyMisraForkEnd rhEnd;
+    final protected ConcurrentLinkedQueue mailbox = new ConcurrentLinkedQueue ();
+    protected volatile Thread owner;
+    protected boolean hungry = false;
+    protected boolean eating = false;
+
+    protected ChandyMisraPhilosopherImpl
+	(final Comparable lhFork, final Comparable rhFork, final String name,
+	 final PhilosopherSettings settings) 
+    {
+	super (name, settings);
+	this.lhEnd = new ChandyMisraForkEnd (lhFork, this);
+	this.rhEnd = new ChandyMisraForkEnd (rhFork, this);
+    }
+
+    public void run () {
+	owner = Thread.currentThread ();
+	if (Debug.enabled) { Debug.out.breakPoint (name + " is starting"); }
+	try {
+	    while (true) {
+		if (Debug.enabled) { Debug.out.println (name + " is thinking"); }
+		serviceFor (think.next ());
+		if (Debug.enabled) { Debug.out.println (name + " is hungry"); }
+		hungry = true;
+		triesToEat ();
+		if (!lhEnd.holding && lhEnd.token) { request (lhEnd); }
+		if (!rhEnd.holding && rhEnd.token) { request (rhEnd); }
+		while (!(lhEnd.holding && rhEnd.holding)) {
+		    service ();
+		    if (!(lhEnd.holding && rhEnd.holding)) { await (); }
+		}
+		if (Debug.enabled) { Debug.out.println (name + " starts eating"); }
+		startsEating ();
+		eating = true;
+		serviceFor (eat.next ());
+		if (Debug.enabled) { Debug.out.println (name + " finishes eating"); }
+		ate ();
+		eating = false;
+		hungry = false;
+		lhEnd.dirty = true;
+		rhEnd.dirty = true;
+		// Hand over any forks our neighbours asked for while we ate
+		if (lhEnd.token) { handOver (lhEnd); }
+		if (rhEnd.token) { handOver (rhEnd); }
+	    }
+	} catch (final InterruptedException ex) {
+	    if (Debug.enabled) { Debug.out.println (name + " is interrupted"); }
+	}
+    }
+
+    // Called by a neighbour's thread
+    protected void post (final ChandyMisraMessage message) {
+	mailbox.offer (message);
+	final Thread owner = this.owner;
+	if (owner != null) { LockSupport.unpark (owner); }
+    }
+
+    protected void request (final ChandyMisraForkEnd end) {
+	if (Debug.enabled) { Debug.out.println (name + " asks for " + end.fork); }
+	end.token = false;
+	end.opposite.philosopher.post (end.opposite.request);
+    }
+
+    protected void handOver (final ChandyMisraForkEnd end) {
+	if (Debug.enabled) { Debug.out.println (name + " hands over " + end.fork); }
+	end.holding = false;
+	end.dirty = false;
+	end.opposite.philosopher.post (end.opposite.handOver);
+	// If we are hungry, we still have the request token, so ask for it back
+	if (hungry) { request (end); }
+    }
+
+    protected void receive (final ChandyMisraMessage message) {
+	final ChandyMisraForkEnd end = message.to;
+	if (message.isRequest) {
+	    end.token = true;
+	    if (end.holding && end.dirty && !eating) { handOver (end); }
+	} else {
+	    if (Debug.enabled) { Debug.out.println (name + " picked up " + end.fork); }
+	    end.holding = true;
+	    end.dirty = false;
+	}
+    }
+
+    protected void service () {
+	ChandyMisraMessage message = (ChandyMisraMessage)(mailbox.poll ());
+	while (message != null) {
+	    receive (message);
+	    message = (ChandyMisraMessage)(mailbox.poll ());
+	}
+    }
+
+    protected void await () throws InterruptedException {
+	LockSupport.park (this);
+	if (Thread.interrupted ()) { throw new InterruptedException (); }
+    }
+
+    // Like sleeping, but answering requests as they arrive
+    protected void serviceFor (final long nanos) throws InterruptedException {
+	final long endTime = System.nanoTime () + nanos;
+	while (true) {
+	    service ();
+	    if (Thread.interrupted ()) { throw new InterruptedException (); }
+	    final long remaining = endTime - System.nanoTime ();
+	    if (remaining <= 0) { return; }
+	    LockSupport.parkNanos (this, remaining);
+	}
+    }
+
+}
@@ -2,6 +2,8 @@ package ajeffrey.teaching.dining;
 
 import ajeffrey.teaching.debug.Debug;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * A philosopher from the dining philosophers problem.
  * A philosopher thinks, picks up their left-hand fork,
@@ -18,66 +20,81 @@ public interface DeadlockingPhilosopher {
      * A factory for building deadlocking philosophers.
      */
 	PhilosopherFactory factory
-	= new DeadlockingPhilosopherFactoryImpl ();
+	= new DeadlockingPhilosopherFactoryImpl (PhilosopherSettings.initial);
 
 }
 
-class DeadlockingPhilosopherFactoryImpl implements PhilosopherFactory {
+class DeadlockingPhilosopherFactoryImpl extends AbstractPhilosopherFactory {
+
+    protected DeadlockingPhilosopherFactoryImpl (final PhilosopherSettings settings) {
+	super (settings);
+    }
 
     public Philosopher build 
 	(final Comparable lhFork, final Comparable rhFork, final String name) 
     {
-	return new DeadlockingPhilosopherImpl (lhFork, rhFork, name);
+	return new DeadlockingPhilosopherImpl 
+	    (lhFork, lockFor (lhFork), rhFork, lockFor (rhFork), name, settings);
+    }
+
+    protected PhilosopherFactory withSettings (final PhilosopherSettings settings) {
+	return new DeadlockingPhilosopherFactoryImpl (settings);
     }
 
 }
 
-class DeadlockingPhilosopherImpl implements Runnable, Philosopher {
+class DeadlockingPhilosopherImpl extends AbstractPhilosopher {
 
     final protected Object lhFork;
+    final protected ReentrantLock lhLock;
     final protected Object rhFork;
-    final protected String name;
-    final protected Thread thread;
+    final protected ReentrantLock rhLock;
 
     protected DeadlockingPhilosopherImpl
-	(final Object lhFork, final Object rhFork, final String name) 
+	(final Object lhFork, final ReentrantLock lhLock, 
+	 final Object rhFork, final ReentrantLock rhLock, 
+	 final String name, final PhilosopherSettings settings) 
     {
+	super (name, settings);
 	this.lhFork = lhFork;
+	this.lhLock = lhLock;
 	this.rhFork = rhFork;
-	this.name = name;
-	this.thread = new Thread (this);
-    }
-
-    public void start () {
-	thread.start ();
+	this.rhLock = rhLock;
     }
 
     public void run () {
-	Debug.out.breakPoint (name + " is starting");
+	if (Debug.enabled) { Debug.out.breakPoint (name + " is starting"); }
 	try {
 	    while (true) {
-		Debug.out.println (name + " is thinking");
-		delay ();
-		Debug.out.println (name + " tries to pick up " + lhFork);
-		synchronized (lhFork) {
-		    Debug.out.println (name + " picked up " + lhFork);
-		    delay ();
-		    Debug.out.println (name + " tries to pick up " + rhFork);
-		    synchronized (rhFork) {
-			Debug.out.println (name + " picked up " + rhFork);
-			Debug.out.println (name + " starts eating");
-			delay ();
-			Debug.out.println (name + " finishes eating");
+		if (Debug.enabled) { Debug.out.println (name + " is thinking"); }
+		delay (think);
+		triesToEat ();
+		if (Debug.enabled) { Debug.out.println (name + " tries to pick up " + lhFork); }
+		pickUp (lhLock);
+		try {
+		    if (Debug.enabled) { Debug.out.println (name + " picked up " + lhFork); }
+		    delay (eat);
+		    if (Debug.enabled) { Debug.out.println (name + " tries to pick up " + rhFork); }
+		    pickUp (rhLock);
+		    try {
+			if (Debug.enabled) {
+			    Debug.out.println (name + " picked up " + rhFork);
+			    Debug.out.println (name + " starts eating");
+			}
+			startsEating ();
+			delay (eat);
+			if (Debug.enabled) { Debug.out.println (name + " finishes eating"); }
+			ate ();
+		    } finally {
+			putDown (rhLock);
 		    }
+		} finally {
+		    putDown (lhLock);
 		}
 	    }
 	} catch (final InterruptedException ex) {
-	    Debug.out.println (name + " is interrupted");
+	    if (Debug.enabled) { Debug.out.println (name + " is interrupted"); }
 	}
     }
 
-    protected void delay () throws InterruptedException {
-	Thread.sleep((long)(1000*Math.random()));
-    }
-
 }
@@ -0,0 +1,97 @@
+package ajeffrey.teaching.dining;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A distribution of delays, used for how long philosophers think
+ * and eat for.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see PhilosopherFactory#withDelays
+ */
+public interface Delay {
+
+    /**
+     * Pick the length of the next delay.
+     * @return the delay in nanoseconds
+     */
+    long next();
+
+    /**
+     * No delay at all, so philosophers are CPU-bound.
+     */
+    Delay none = fixed (0);
+
+    /**
+     * The classic delay: uniformly distributed between 0 and 1 second.
+     */
+    Delay classic = uniform (1000);
+
+    /**
+     * A fixed delay.
+     * @param millis the delay in milliseconds
+     * @return a delay which is always the same
+     */
+    static Delay fixed (final double millis) {
+	return new FixedDelay ((long)(millis * 1000000));
+    }
+
+    /**
+     * A delay uniformly distributed between 0 and a maximum.
+     * @param millis the maximum delay in milliseconds
+     * @return a uniformly distributed delay
+     */
+    static Delay uniform (final double millis) {
+	return new UniformDelay ((long)(millis * 1000000));
+    }
+
+    /**
+     * An exponentially distributed delay.
+     * @param millis the mean delay in milliseconds
+     * @return an exponentially distributed delay
+     */
+    static Delay exponential (final double millis) {
+	return new ExponentialDelay (millis * 1000000);
+    }
+
+}
+
+class FixedDelay implements Delay {
+
+    protected final long nanos;
+
+    protected FixedDelay (final long nanos) { this.nanos = nanos; }
+
+    public long next () { return nanos; }
+
+    public String toString () { return "fixed (" + nanos + "ns)"; }
+
+}
+
+class UniformDelay implements Delay {
+
+    protected final long max;
+
+    protected UniformDelay (final long max) { this.max = max; }
+
+    public long next () { 
+	return (max <= 0) ? 0 : ThreadLocalRandom.current ().nextLong (max);
+    }
+
+    public String toString () { return "uniform (" + max + "ns)"; }
+
+}
+
+class ExponentialDelay implements Delay {
+
+    protected final double mean;
+
+    protected ExponentialDelay (final double mean) { this.mean = mean; }
+
+    public long next () { 
+	return (long)(-mean * Math.log (1.0 - ThreadLocalRandom.current ().nextDouble ()));
+    }
+
+    public String toString () { return "exponential (" + (long)mean + "ns)"; }
+
+}
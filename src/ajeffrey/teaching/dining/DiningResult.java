@@ -0,0 +1,67 @@
+package ajeffrey.teaching.dining;
+
+import ajeffrey.teaching.util.histogram.Histogram;
+
+/**
+ * The results of running a dining table.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see DiningTable
+ */
+public interface DiningResult {
+
+    /**
+     * The number of seats at the table.
+     * @return the number of philosophers
+     */
+    int seats();
+
+    /**
+     * How long the philosophers were running for.
+     * @return the elapsed time in milliseconds
+     */
+    long elapsed();
+
+    /**
+     * The total number of meals eaten.
+     * @return the number of meals eaten by all philosophers
+     */
+    long meals();
+
+    /**
+     * The number of meals eaten by one philosopher.
+     * @param seat the seat number, from 0 to seats()-1
+     * @return the number of meals eaten by the philosopher in that seat
+     */
+    long meals(int seat);
+
+    /**
+     * The throughput of the table.
+     * @return the number of meals eaten per second
+     */
+    double mealsPerSecond();
+
+    /**
+     * How fairly the meals were shared out, as Jain's fairness index
+     * (sum x)<sup>2</sup> / (n sum x<sup>2</sup>) of the meals eaten
+     * by each philosopher.  This is 1 if every philosopher ate the
+     * same number of meals, and 1/n if only one philosopher ate.
+     * @return the fairness index, between 1/n and 1
+     */
+    double fairness();
+
+    /**
+     * How long philosophers waited to eat, from trying to pick up
+     * their forks to starting to eat, across the whole table.
+     * @return a histogram of waiting times in nanoseconds
+     */
+    Histogram waitTimes();
+
+    /**
+     * The number of philosophers who did not stop when asked,
+     * for example because they were deadlocked.
+     * @return the number of philosophers still at the table
+     */
+    int stuck();
+
+}
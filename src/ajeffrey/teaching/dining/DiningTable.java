@@ -0,0 +1,221 @@
+package ajeffrey.teaching.dining;
+
+import ajeffrey.teaching.util.histogram.Histogram;
+
+/**
+ * A table of dining philosophers, for repeatable experiments
+ * with the different philosophers.
+ * A table seats a ring of philosophers, runs them for a fixed time
+ * or until they have eaten a given number of meals, stops them
+ * and reports the results.  For example, to run 64 CPU-bound
+ * token philosophers for ten seconds:
+ * <pre>
+ *   final PhilosopherFactory factory = 
+ *     TokenPhilosopher.withPool (TokenPool.factory.build (63))
+ *       .withDelays (Delay.none, Delay.none);
+ *   final DiningResult result = 
+ *     DiningTable.factory.build (factory, 64).runFor (10000);
+ * </pre>
+ * A table can only be run once.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see DiningResult
+ */
+public interface DiningTable {
+
+    /**
+     * The number of seats at the table.
+     * @return the number of philosophers
+     */
+    int seats();
+
+    /**
+     * The philosopher in a seat.
+     * @param seat the seat number, from 0 to seats()-1
+     * @return the philosopher in that seat
+     */
+    Philosopher philosopher(int seat);
+
+    /**
+     * Run the philosophers for a fixed time, then stop them.
+     * @param duration the time to run for, in milliseconds
+     * @return the results
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     * @exception IllegalStateException thrown if the table has already run
+     */
+    DiningResult runFor(long duration) throws InterruptedException;
+
+    /**
+     * Run the philosophers until they have eaten a given number of
+     * meals between them, or a timeout expires, then stop them.
+     * @param meals the number of meals to wait for
+     * @param timeout the maximum time to run for, in milliseconds
+     * @return the results
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     * @exception IllegalStateException thrown if the table has already run
+     */
+    DiningResult runMeals(long meals, long timeout) throws InterruptedException;
+
+    /**
+     * A factory for building dining tables.
+     */
+    DiningTableFactory factory = new DiningTableFactoryImpl ();
+
+}
+
+class DiningTableFactoryImpl implements DiningTableFactory {
+
+    public DiningTable build (final PhilosopherFactory factory, final int seats) {
+	if (seats < 2) { throw new IllegalArgumentException (); }
+	return new DiningTableImpl (factory, seats);
+    }
+
+}
+
+class DiningTableImpl implements DiningTable {
+
+    // How long to wait for the philosophers to leave the table
+    static final long SHUTDOWN_TIMEOUT = 1000;
+
+    // How often to check the meal count in runMeals
+    static final long POLL_INTERVAL = 10;
+
+    protected final Philosopher[] philosophers;
+    protected boolean run = false;
+
+    protected DiningTableImpl (final PhilosopherFactory tables, final int seats) {
+	// A factory of our own, so philosophers only pair up with
+	// neighbours at this table
+	final PhilosopherFactory factory = tables.newTable ();
+	final Comparable[] forks = new Comparable[seats];
+	for (int i=0; i < seats; i++) {
+	    forks[i] = Fork.factory.build ("Fork " + i);
+	}
+	philosophers = new Philosopher[seats];
+	for (int i=0; i < seats; i++) {
+	    philosophers[i] = factory.build 
+		(forks[i], forks[(i+1) % seats], "Philosopher " + i);
+	}
+    }
+
+    public int seats () {
+	return philosophers.length;
+    }
+
+    public Philosopher philosopher (final int seat) {
+	return philosophers[seat];
+    }
+
+    public DiningResult runFor (final long duration) throws InterruptedException {
+	final long startTime = start ();
+	Thread.sleep (duration);
+	return stop (startTime);
+    }
+
+    public DiningResult runMeals (final long meals, final long timeout) throws InterruptedException {
+	final long startTime = start ();
+	final long endTime = startTime + timeout * 1000000L;
+	while (meals () < meals && System.nanoTime () - endTime < 0) {
+	    Thread.sleep (POLL_INTERVAL);
+	}
+	return stop (startTime);
+    }
+
+    protected long meals () {
+	long result = 0;
+	for (int i=0; i < philosophers.length; i++) {
+	    result += philosophers[i].meals ();
+	}
+	return result;
+    }
+
+    protected synchronized long start () {
+	if (run) { throw new IllegalStateException (); }
+	run = true;
+	final long startTime = System.nanoTime ();
+	for (int i=0; i < philosophers.length; i++) {
+	    philosophers[i].start ();
+	}
+	return startTime;
+    }
+
+    protected DiningResult stop (final long startTime) throws InterruptedException {
+	for (int i=0; i < philosophers.length; i++) {
+	    philosophers[i].stop ();
+	}
+	final long elapsed = (System.nanoTime () - startTime) / 1000000L;
+	final long endTime = System.nanoTime () + SHUTDOWN_TIMEOUT * 1000000L;
+	int stuck = 0;
+	for (int i=0; i < philosophers.length; i++) {
+	    final long remaining = (endTime - System.nanoTime ()) / 1000000L;
+	    if (!philosophers[i].join (Math.max (remaining, 0))) { stuck++; }
+	}
+	final long[] meals = new long[philosophers.length];
+	final Histogram waitTimes = Histogram.factory.build ();
+	for (int i=0; i < philosophers.length; i++) {
+	    meals[i] = philosophers[i].meals ();
+	    waitTimes.add (philosophers[i].waitTimes ());
+	}
+	return new DiningResultImpl (elapsed, meals, waitTimes, stuck);
+    }
+
+}
+
+class DiningResultImpl implements DiningResult {
+
+    protected final long elapsed;
+    protected final long[] meals;
+    protected final long totalMeals;
+    protected final double fairness;
+    protected final Histogram waitTimes;
+    protected final int stuck;
+
+    protected DiningResultImpl 
+	(final long elapsed, final long[] meals, final Histogram waitTimes, final int stuck) 
+    {
+	this.elapsed = elapsed;
+	this.meals = meals;
+	this.waitTimes = waitTimes;
+	this.stuck = stuck;
+	long totalMeals = 0;
+	double squares = 0;
+	for (int i=0; i < meals.length; i++) { 
+	    totalMeals += meals[i]; 
+	    squares += (double)meals[i] * meals[i];
+	}
+	this.totalMeals = totalMeals;
+	this.fairness = (squares == 0) ? 1 : 
+	    ((double)totalMeals * totalMeals) / (meals.length * squares);
+    }
+
+    public int seats () { return meals.length; }
+
+    public long elapsed () { return elapsed; }
+
+    public long meals () { return totalMeals; }
+
+    public long meals (final int seat) { return meals[seat]; }
+
+    public double mealsPerSecond () { 
+	return (elapsed == 0) ? 0 : (1000.0 * totalMeals) / elapsed;
+    }
+
+    public double fairness () { return fairness; }
+
+    public Histogram waitTimes () { return waitTimes; }
+
+    public int stuck () { return stuck; }
+
+    public String toString () {
+	return "DiningResult { seats=" + seats () + 
+	    ", elapsed=" + elapsed + "ms" +
+	    ", meals=" + totalMeals +
+	    ", mealsPerSecond=" + mealsPerSecond () +
+	    ", fairness=" + fairness +
+	    ", waitTimes=" + waitTimes +
+	    ", stuck=" + stuck + " }";
+    }
+
+}
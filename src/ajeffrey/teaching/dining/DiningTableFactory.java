@@ -0,0 +1,21 @@
+package ajeffrey.teaching.dining;
+
+/**
+ * A factory for building dining tables.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface DiningTableFactory {
+
+    /**
+     * Build a new table, with a ring of philosophers and forks.
+     * Philosopher i has fork i on their left and fork i+1 (mod seats)
+     * on their right.
+     * @param factory the factory to build philosophers with
+     * @param seats the number of philosophers
+     * @return a new dining table
+     * @exception IllegalArgumentException thrown if seats < 2
+     */
+    DiningTable build(PhilosopherFactory factory, int seats);
+
+}
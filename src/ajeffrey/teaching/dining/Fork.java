@@ -0,0 +1,45 @@
+package ajeffrey.teaching.dining;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fork for the dining philosophers.
+ * Philosophers will use any <code>Comparable</code> object as a fork,
+ * picking it up with a <code>ReentrantLock</code> rather than its
+ * monitor, so that a philosopher on a virtual thread does not pin its
+ * carrier thread while it eats.  For other objects, the philosopher
+ * factory keeps a lock for each fork, shared only by philosophers built
+ * by that factory.  Forks built by <code>Fork.factory</code> carry
+ * their own lock instead, which needs no lookup and is shared by every
+ * philosopher given the fork.
+ * <p>Forks are ordered by name, with forks of the same name ordered
+ * by when they were built, so no two forks compare as equal.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see ThreadProvider#virtual
+ */
+public interface Fork extends Comparable {
+
+    /**
+     * The name of the fork.
+     * @return the name of the fork
+     */
+    String name();
+
+    /**
+     * A factory for building forks.
+     */
+    ForkFactory factory = new ForkFactoryImpl ();
+
+}
+
+class ForkFactoryImpl implements ForkFactory {
+
+    protected final AtomicLong count = new AtomicLong (0);
+
+    public Fork build (final String name) {
+	if (name == null) { throw new IllegalArgumentException (); }
+	return new ForkImpl (name, count.getAndIncrement ());
+    }
+
+}
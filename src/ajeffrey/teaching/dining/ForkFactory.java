@@ -0,0 +1,18 @@
+package ajeffrey.teaching.dining;
+
+/**
+ * A factory for building forks.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface ForkFactory {
+
+    /**
+     * Build a new fork.
+     * @param name the name of the fork
+     * @return a new fork
+     * @exception IllegalArgumentException thrown if name is null
+     */
+    Fork build(String name);
+
+}
@@ -0,0 +1,34 @@
+package ajeffrey.teaching.dining;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fork built by Fork.factory, which carries its own lock.
+ */
+class ForkImpl implements Fork {
+
+    final protected String name;
+    final protected long serial;
+    final protected ReentrantLock lock = new ReentrantLock ();
+
+    protected ForkImpl (final String name, final long serial) {
+	this.name = name;
+	this.serial = serial;
+    }
+
+    public String name () {
+	return name;
+    }
+
+    public int compareTo (final Object other) {
+	final ForkImpl that = (ForkImpl)other;
+	final int result = name.compareTo (that.name);
+	if (result != 0) { return result; }
+	return (serial < that.serial) ? -1 : (serial == that.serial) ? 0 : 1;
+    }
+
+    public String toString () {
+	return name;
+    }
+
+}
@@ -1,11 +1,8 @@
 package ajeffrey.teaching.dining;
 
 import ajeffrey.teaching.debug.Debug;
-import ajeffrey.teaching.test.TestPhilosopher;
-import javafx.util.Pair;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A philosopher from the dining philosophers problem.
@@ -14,118 +11,107 @@ import java.util.List;
  * Unfortunately, putting a collection of philosophers in a circle
  * can produce deadlock, if they all pick up their lh forks before any
  * of them have a chance to pick up their rh forks.
+ * <p>An ordered philosopher avoids deadlock by resource ordering:
+ * rather than picking up the lh fork first, it picks up whichever
+ * of its forks is lower (according to <code>compareTo</code>),
+ * then the higher one, and holds both while eating.  Since every
+ * philosopher acquires forks in the same global order, there can
+ * be no cycle of philosophers waiting for each other, for any
+ * number of philosophers.</p>
  * @author Alan Jeffrey and Lea Middleton
- * @version 1.0.1
+ * @version 1.0.2
  */
 
 /* EDITOR: Lea Middleton
 
    EDITS:
-   compareTo() method:  @Override
-                        public int compareTo(OrderedPhilosopherImpl o) {
-                            int i = String.valueOf(o.lhFork).compareTo(String.valueOf(o.rhFork));
-                            switch(name){
-                               case "Fred":
-                               case "Wilma":
-                               case "Barney":
-                                            if(i < 0){  Debug.out.println (o.name + " desired pick fork order is correct "); return 1;}
-                                            break;
-                               case "Betty":
-                                            if(i > 0) { Debug.out.println (o.name + " desired pick fork order is correct "); return 1;}
-                                            break;
-                            }
-                            return 0;
-                        }
-   run() method: separated the nested synchronized locks
-                 added control statement to check my order
-                    /* To establish order */
-                    /*if (compareTo(this) == 1)
+   compareTo() method: removed, since it only worked for Fred, Wilma, Barney and Betty.
+   run() method: picks up the lower fork first (using the forks' own compareTo),
+                 and holds it while picking up the higher fork and eating.
  */
 
 public interface OrderedPhilosopher {
 
     /**
-     * A factory for building deadlocking philosophers.
+     * A factory for building ordered philosophers.
      */
     PhilosopherFactory factory
-	= new OrderedPhilosopherFactoryImpl();
+	= new OrderedPhilosopherFactoryImpl(PhilosopherSettings.initial);
 
 }
 
-class OrderedPhilosopherFactoryImpl implements PhilosopherFactory {
+class OrderedPhilosopherFactoryImpl extends AbstractPhilosopherFactory {
 
-    public Philosopher build(final Comparable lhFork, final Comparable rhFork, final String name) {
-		return new OrderedPhilosopherImpl(lhFork, rhFork, name);
+    protected OrderedPhilosopherFactoryImpl(final PhilosopherSettings settings) {
+		super(settings);
     }
-}
 
-class OrderedPhilosopherImpl implements Runnable, Philosopher, Comparable<OrderedPhilosopherImpl>{
+    public Philosopher build(final Comparable lhFork, final Comparable rhFork, final String name) {
+		return new OrderedPhilosopherImpl(lhFork, lockFor(lhFork), rhFork, lockFor(rhFork), name, settings);
+    }
 
-    final protected Comparable lhFork;
-    final protected Comparable rhFork;
-    final protected String name;
-    final protected Thread thread;
+    protected PhilosopherFactory withSettings(final PhilosopherSettings settings) {
+		return new OrderedPhilosopherFactoryImpl(settings);
+    }
+}
 
-    protected OrderedPhilosopherImpl(final Comparable lhFork, final Comparable rhFork, final String name) {
-		this.lhFork = lhFork;
-		this.rhFork = rhFork;
-		this.name = name;
-		this.thread = new Thread(this);
+class OrderedPhilosopherImpl extends AbstractPhilosopher {
+
+    final protected Comparable firstFork;
+    final protected ReentrantLock firstLock;
+    final protected Comparable secondFork;
+    final protected ReentrantLock secondLock;
+
+    protected OrderedPhilosopherImpl(final Comparable lhFork, final ReentrantLock lhLock, final Comparable rhFork, final ReentrantLock rhLock, final String name, final PhilosopherSettings settings) {
+		super(name, settings);
+		/* To establish order */
+		if (lhFork.compareTo(rhFork) <= 0) {
+			this.firstFork = lhFork;
+			this.firstLock = lhLock;
+			this.secondFork = rhFork;
+			this.secondLock = rhLock;
+		} else {
+			this.firstFork = rhFork;
+			this.firstLock = rhLock;
+			this.secondFork = lhFork;
+			this.secondLock = lhLock;
+		}
 	}
 
-    public void start () {
-	    thread.start ();
-    }
-
     public void run () {
-	    Debug.out.breakPoint (name + " is starting");
+	    if (Debug.enabled) { Debug.out.breakPoint (name + " is starting"); }
 	    try {
 	        while (true) {
-                Debug.out.println (name + " is thinking");
-                delay ();
-                Debug.out.println (name + " tries to pick up " + lhFork);
-
-                synchronized (lhFork) {
-                    /* To establish order */
-                    if(compareTo(this) == 1) {
-                        Debug.out.println(name + " picked up " + lhFork);
-                        delay();
-                        Debug.out.println(name + " tries to pick up " + rhFork);
-                    }
-                }
-                synchronized (rhFork) {
-                    /* To establish order */
-                    if (compareTo(this) == 1) {
-                        Debug.out.println(name + " picked up " + rhFork);
-                        Debug.out.println(name + " starts eating");
-                        delay();
-                        Debug.out.println(name + " finishes eating");
+                if (Debug.enabled) { Debug.out.println (name + " is thinking"); }
+                delay (think);
+                triesToEat ();
+                if (Debug.enabled) { Debug.out.println (name + " tries to pick up " + firstFork); }
+                pickUp(firstLock);
+                try {
+                    if (Debug.enabled) { Debug.out.println(name + " picked up " + firstFork); }
+                    delay(eat);
+                    if (Debug.enabled) { Debug.out.println(name + " tries to pick up " + secondFork); }
+                    pickUp(secondLock);
+                    try {
+                        if (Debug.enabled) {
+                            Debug.out.println(name + " picked up " + secondFork);
+                            Debug.out.println(name + " starts eating");
+                        }
+                        startsEating();
+                        delay(eat);
+                        if (Debug.enabled) { Debug.out.println(name + " finishes eating"); }
+                        ate();
+                    } finally {
+                        putDown(secondLock);
                     }
+                } finally {
+                    putDown(firstLock);
                 }
 	        }
 
 	    } catch (final InterruptedException ex) {
-	        Debug.out.println (name + " is interrupted");
+	        if (Debug.enabled) { Debug.out.println (name + " is interrupted"); }
 	    }
     } /* End of run method */
 
-    protected void delay () throws InterruptedException {
-	Thread.sleep((long)(1000*Math.random()));
-    }
-
-    @Override
-    public int compareTo(OrderedPhilosopherImpl o) {
-        int i = String.valueOf(o.lhFork).compareTo(String.valueOf(o.rhFork));
-        switch(name){
-            case "Fred":
-            case "Wilma":
-            case "Barney":
-                if(i < 0){  Debug.out.println (o.name + " desired pick fork order is correct "); return 1;}
-                break;
-            case "Betty":
-                if(i > 0) { Debug.out.println (o.name + " desired pick fork order is correct "); return 1;}
-                break;
-        }
-        return 0;
-    }
 }
@@ -1,5 +1,7 @@
 package ajeffrey.teaching.dining;
 
+import ajeffrey.teaching.util.histogram.Histogram;
+
 /**
  * A philosopher from the dining philosophers problem.
  * A philosopher thinks, picks up their left-hand fork,
@@ -17,4 +19,35 @@ public interface Philosopher {
      */
     void start();
 
+    /**
+     * Stop the philosopher, by interrupting its thread.
+     * A philosopher blocked waiting for a fork stops without
+     * picking it up, and puts down any forks it is holding.
+     */
+    void stop();
+
+    /**
+     * Wait for the philosopher to stop.
+     * @param timeout the time in milliseconds to wait
+     * @return true if the philosopher has stopped (or was stopped
+     *   before it started), false if the timeout expired
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    boolean join(long timeout) throws InterruptedException;
+
+    /**
+     * The number of meals this philosopher has finished.
+     * @return the number of meals eaten
+     */
+    long meals();
+
+    /**
+     * How long this philosopher has waited to eat: the time from
+     * trying to pick up their forks to starting to eat, in nanoseconds.
+     * This should only be read once the philosopher has stopped.
+     * @return a histogram of waiting times
+     */
+    Histogram waitTimes();
+
 }
@@ -1,5 +1,7 @@
 package ajeffrey.teaching.dining;
 
+import ajeffrey.teaching.util.time.TimingWheel;
+
 /**
  * A factory class for building philosophers.
  * @author Alan Jeffrey
@@ -16,4 +18,47 @@ public interface PhilosopherFactory {
      */
     Philosopher build(Comparable lhFork, Comparable rhFork, String name);
 
+    /**
+     * A factory which builds the same kind of philosophers,
+     * but runs them on threads from the given provider.
+     * @param threads the thread provider
+     * @return a new philosopher factory
+     */
+    PhilosopherFactory withThreads(ThreadProvider threads);
+
+    /**
+     * A factory which builds the same kind of philosophers,
+     * but with different delays.  The think delay is used while
+     * thinking, and the eat delay is used both while eating and
+     * (for philosophers who pick up one fork at a time) between
+     * picking up the first and second forks.
+     * By default, both delays are <code>Delay.classic</code>.
+     * @param think the delay while thinking
+     * @param eat the delay while eating
+     * @return a new philosopher factory
+     */
+    PhilosopherFactory withDelays(Delay think, Delay eat);
+
+    /**
+     * A factory which builds the same kind of philosophers,
+     * but which wait out their delays on a timing wheel rather than
+     * with <code>Thread.sleep</code>, so that a table of thousands of
+     * philosophers only needs one timer thread.
+     * By default, philosophers use <code>Thread.sleep</code>.
+     * @param timer the timing wheel, or null to use <code>Thread.sleep</code>
+     * @return a new philosopher factory
+     */
+    PhilosopherFactory withTimer(TimingWheel timer);
+
+    /**
+     * A factory which builds the same kind of philosophers, for
+     * seating at a new table.  Philosophers find their neighbours
+     * by which forks they were built with, and only share forks with
+     * philosophers built by the same factory (unless the forks were
+     * built by <code>Fork.factory</code>), so each table should be
+     * built by its own factory from <code>newTable</code>.
+     * @return a new philosopher factory
+     */
+    PhilosopherFactory newTable();
+
 }
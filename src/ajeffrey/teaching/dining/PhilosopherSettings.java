@@ -0,0 +1,39 @@
+package ajeffrey.teaching.dining;
+
+import ajeffrey.teaching.util.time.TimingWheel;
+
+/**
+ * The settings shared by every philosopher built by a factory.
+ */
+final class PhilosopherSettings {
+
+    static final PhilosopherSettings initial = 
+	new PhilosopherSettings (ThreadProvider.platform, Delay.classic, Delay.classic, null);
+
+    final ThreadProvider threads;
+    final Delay think;
+    final Delay eat;
+    final TimingWheel timer;
+
+    PhilosopherSettings 
+	(final ThreadProvider threads, final Delay think, final Delay eat, final TimingWheel timer) 
+    {
+	this.threads = threads;
+	this.think = think;
+	this.eat = eat;
+	this.timer = timer;
+    }
+
+    PhilosopherSettings withThreads (final ThreadProvider threads) {
+	return new PhilosopherSettings (threads, think, eat, timer);
+    }
+
+    PhilosopherSettings withDelays (final Delay think, final Delay eat) {
+	return new PhilosopherSettings (threads, think, eat, timer);
+    }
+
+    PhilosopherSettings withTimer (final TimingWheel timer) {
+	return new PhilosopherSettings (threads, think, eat, timer);
+    }
+
+}
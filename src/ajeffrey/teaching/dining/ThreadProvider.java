@@ -0,0 +1,138 @@
+package ajeffrey.teaching.dining;
+
+import ajeffrey.teaching.debug.Debug;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A strategy for providing threads to philosophers.
+ * Each philosopher runs as one long-lived task, which sleeps or
+ * blocks most of the time, so the choice of thread matters once
+ * there are thousands of philosophers at the table:
+ * <ul>
+ * <li><code>platform</code> starts a new operating system thread
+ *   for each philosopher (this is the default);</li>
+ * <li><code>virtual</code> starts a new virtual thread for each
+ *   philosopher, so a large table runs on a handful of carrier
+ *   threads.  Virtual threads need Java 21; on older JVMs this
+ *   falls back to platform threads.  On Java 21 to 23 a virtual
+ *   thread holding or waiting for a monitor is pinned to its carrier,
+ *   so philosophers pick up forks with locks rather than monitors;</li>
+ * <li><code>executor (e)</code> submits each philosopher to an
+ *   executor.  Since philosophers never finish on their own, the
+ *   executor must be able to run every philosopher at once
+ *   (for example a cached thread pool): any philosopher left in
+ *   the executor's queue will never sit down.</li>
+ * </ul>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see PhilosopherFactory#withThreads
+ */
+public interface ThreadProvider {
+
+    /**
+     * Start running a task.
+     * @param task the task to run
+     * @param name a name for the thread running the task
+     * @return a future which can be cancelled to interrupt the task
+     */
+    Future start(Runnable task, String name);
+
+    /**
+     * A thread provider which uses one platform thread per task.
+     */
+    ThreadProvider platform = new PlatformThreadProvider ();
+
+    /**
+     * A thread provider which uses one virtual thread per task.
+     */
+    ThreadProvider virtual = new VirtualThreadProvider ();
+
+    /**
+     * Build a thread provider which runs tasks on an executor.
+     * @param executor the executor to run tasks on
+     * @return a new thread provider
+     */
+    static ThreadProvider executor (final Executor executor) {
+	return new ExecutorThreadProvider (executor);
+    }
+
+}
+
+class PlatformThreadProvider implements ThreadProvider {
+
+    public Future start (final Runnable task, final String name) {
+	final FutureTask result = new FutureTask (task, null);
+	new Thread (result, name).start ();
+	return result;
+    }
+
+    public String toString () { return "platform"; }
+
+}
+
+class VirtualThreadProvider implements ThreadProvider {
+
+    // Thread.ofVirtual () and Thread.Builder.unstarted (Runnable),
+    // looked up reflectively so that we still run on older JVMs.
+    protected final Method ofVirtual;
+    protected final Method unstarted;
+
+    protected VirtualThreadProvider () {
+	Method ofVirtual = null;
+	Method unstarted = null;
+	try {
+	    ofVirtual = Thread.class.getMethod ("ofVirtual");
+	    unstarted = Class.forName ("java.lang.Thread$Builder")
+		.getMethod ("unstarted", Runnable.class);
+	} catch (final ReflectiveOperationException ex) {
+	    ofVirtual = null;
+	    unstarted = null;
+	}
+	this.ofVirtual = ofVirtual;
+	this.unstarted = unstarted;
+    }
+
+    public Future start (final Runnable task, final String name) {
+	final FutureTask result = new FutureTask (task, null);
+	if (ofVirtual == null) {
+	    new Thread (result, name).start ();
+	} else {
+	    try {
+		final Thread thread = (Thread)(unstarted.invoke (ofVirtual.invoke (null), result));
+		thread.setName (name);
+		thread.start ();
+	    } catch (final ReflectiveOperationException ex) {
+		if (Debug.enabled) { Debug.out.println ("VirtualThreadProvider.start: " + ex); }
+		new Thread (result, name).start ();
+	    }
+	}
+	return result;
+    }
+
+    public String toString () { 
+	return (ofVirtual == null) ? "virtual (unavailable, using platform)" : "virtual";
+    }
+
+}
+
+class ExecutorThreadProvider implements ThreadProvider {
+
+    protected final Executor executor;
+
+    protected ExecutorThreadProvider (final Executor executor) {
+	this.executor = executor;
+    }
+
+    public Future start (final Runnable task, final String name) {
+	final FutureTask result = new FutureTask (task, null);
+	executor.execute (result);
+	return result;
+    }
+
+    public String toString () { return "executor"; }
+
+}
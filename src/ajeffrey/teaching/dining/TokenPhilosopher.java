@@ -1,9 +1,8 @@
 package ajeffrey.teaching.dining;
 
 import ajeffrey.teaching.debug.Debug;
-import ajeffrey.teaching.test.TestPhilosopher;
 
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A philosopher from the dining philosophers problem.
@@ -42,120 +41,124 @@ import java.util.concurrent.Semaphore;
 							}
 						}
 	Implemented functions: receivedTokens(), releasedTokens(), incrementTokens(), decrementTokens()
+	Tokens now come from a TokenPool rather than TestPhilosopher.tokensOut and TestPhilosopher.sem,
+	so incrementTokens() and decrementTokens() are no longer needed.
 
  */
 public interface TokenPhilosopher {
 
+    /**
+     * The pool of tokens shared by philosophers built by <code>factory</code>.
+     */
+	TokenPool tokens = TokenPool.factory.build (3);
+
     /**
      * A factory for building token philosophers.
      */
 	PhilosopherFactory factory
-	= new TokenPhilosopherFactoryImpl ();
+	= new TokenPhilosopherFactoryImpl (tokens, PhilosopherSettings.initial);
+
+    /**
+     * Build a factory for token philosophers which share a given pool.
+     * A table of n philosophers is deadlock-free with at most n-1 tokens.
+     * @param tokens the pool of tokens
+     * @return a factory for building token philosophers
+     */
+	static PhilosopherFactory withPool (final TokenPool tokens) {
+		return new TokenPhilosopherFactoryImpl (tokens, PhilosopherSettings.initial);
+	}
 
 }
 
-class TokenPhilosopherFactoryImpl implements PhilosopherFactory {
+class TokenPhilosopherFactoryImpl extends AbstractPhilosopherFactory {
+
+	final protected TokenPool tokens;
+
+	protected TokenPhilosopherFactoryImpl (final TokenPool tokens, final PhilosopherSettings settings) {
+		super (settings);
+		this.tokens = tokens;
+	}
 
     public Philosopher build (final Comparable lhFork, final Comparable rhFork, final String name) {
-		return new TokenPhilosopherImpl (lhFork, rhFork, name);
+		return new TokenPhilosopherImpl (lhFork, lockFor (lhFork), rhFork, lockFor (rhFork), name, tokens, settings);
+    }
+
+    protected PhilosopherFactory withSettings (final PhilosopherSettings settings) {
+		return new TokenPhilosopherFactoryImpl (tokens, settings);
     }
 }
 
-class TokenPhilosopherImpl implements Runnable, Philosopher {
+class TokenPhilosopherImpl extends AbstractPhilosopher {
 
     final protected Object lhFork;
+    final protected ReentrantLock lhLock;
     final protected Object rhFork;
-    final protected String name;
-    final protected Thread thread;
+    final protected ReentrantLock rhLock;
+    final protected TokenPool tokens;
 
-    protected TokenPhilosopherImpl(final Object lhFork, final Object rhFork, final String name) {
+    protected TokenPhilosopherImpl(final Object lhFork, final ReentrantLock lhLock, final Object rhFork, final ReentrantLock rhLock, final String name, final TokenPool tokens, final PhilosopherSettings settings) {
+		super (name, settings);
 		this.lhFork = lhFork;
+		this.lhLock = lhLock;
 		this.rhFork = rhFork;
-		this.name = name;
-		this.thread = new Thread (this);
-    }
-
-    public void start () {
-	thread.start ();
+		this.rhLock = rhLock;
+		this.tokens = tokens;
     }
 
     public void run () {
-		Debug.out.breakPoint (name + " is starting");
+		if (Debug.enabled) { Debug.out.breakPoint (name + " is starting"); }
 		try {
 	    	while (true) {
-				Debug.out.println(name + " is thinking");
-				delay();
+				if (Debug.enabled) { Debug.out.println(name + " is thinking"); }
+				delay(think);
+				triesToEat();
 				if(receivedToken()) {
-					eat();
-					releaseToken();
+					try {
+						eat();
+					} finally {
+						releaseToken();
+					}
 				}
 			}
 		} catch (final InterruptedException ex) {
-		    Debug.out.println (name + " is interrupted");
+		    if (Debug.enabled) { Debug.out.println (name + " is interrupted"); }
 		}
     }
 
 	protected void eat() throws InterruptedException {
-		Debug.out.println (name + " tries to pick up " + lhFork);
-		synchronized (lhFork) {
-			Debug.out.println (name + " picked up " + lhFork);
-			delay ();
-			Debug.out.println (name + " tries to pick up " + rhFork);
-			synchronized (rhFork) {
-				Debug.out.println (name + " picked up " + rhFork);
-				Debug.out.println (name + " starts eating");
-				delay ();
-				Debug.out.println (name + " finishes eating");
-			}
-		}
-	}
-
-	synchronized boolean receivedToken() throws InterruptedException{
-    	synchronized ("this"){
-    		boolean gotToken = false;
-    		try{
-				if(TestPhilosopher.tokensOut < TestPhilosopher.maxTokens)
-    				gotToken = incrementTokens();
-					if(gotToken) {
-						TestPhilosopher.sem.acquire();
-					}
-			}finally{
-    			if(!gotToken)
-					Debug.out.println ("No Tokens available !!");
-    				TestPhilosopher.sem.release();
-			}
-			Debug.out.println ("receivedToken(): Current number of tokens checked out: " + String.valueOf(TestPhilosopher.tokensOut));
-			Debug.out.println ("receivedToken(): Tokens available: " + String.valueOf(TestPhilosopher.maxTokens - TestPhilosopher.tokensOut));
-    		return gotToken;
-		}
-	}
-
-	synchronized void releaseToken() {
-    	synchronized ("this") {
-			boolean releasedToken = decrementTokens();
-			if(releasedToken) {
-				TestPhilosopher.sem.release();
-				Debug.out.println("releaseToken(): Number of tokens available: " + String.valueOf(TestPhilosopher.maxTokens - TestPhilosopher.tokensOut));
-				Debug.out.println("releaseToken(): Tokens available: " + String.valueOf(TestPhilosopher.maxTokens - TestPhilosopher.tokensOut));
+		if (Debug.enabled) { Debug.out.println (name + " tries to pick up " + lhFork); }
+		pickUp (lhLock);
+		try {
+			if (Debug.enabled) { Debug.out.println (name + " picked up " + lhFork); }
+			delay (eat);
+			if (Debug.enabled) { Debug.out.println (name + " tries to pick up " + rhFork); }
+			pickUp (rhLock);
+			try {
+				if (Debug.enabled) {
+				    Debug.out.println (name + " picked up " + rhFork);
+				    Debug.out.println (name + " starts eating");
+				}
+				startsEating ();
+				delay (eat);
+				if (Debug.enabled) { Debug.out.println (name + " finishes eating"); }
+				ate ();
+			} finally {
+				putDown (rhLock);
 			}
+		} finally {
+			putDown (lhLock);
 		}
 	}
 
-	synchronized boolean incrementTokens(){
-    	synchronized ("this") {
-			TestPhilosopher.tokensOut++;
-		}
-    	return true;
+	boolean receivedToken() {
+		final boolean gotToken = tokens.tryAcquire();
+		if (Debug.enabled && !gotToken) { Debug.out.println ("No Tokens available !!"); }
+		if (Debug.enabled) { Debug.out.println ("receivedToken(): Tokens available: " + String.valueOf(tokens.available())); }
+		return gotToken;
 	}
 
-	synchronized boolean decrementTokens(){
-    	synchronized ("this") {
-			TestPhilosopher.tokensOut--;
-		}
-		return true;
+	void releaseToken() {
+		tokens.release();
+		if (Debug.enabled) { Debug.out.println("releaseToken(): Tokens available: " + String.valueOf(tokens.available())); }
 	}
-
-	protected void delay () throws InterruptedException {
-		Thread.sleep((long)(1000*Math.random()));
-    }
 }
@@ -0,0 +1,199 @@
+package ajeffrey.teaching.dining;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of tokens for the dining philosophers.
+ * A philosopher must hold a token before picking up any forks,
+ * so a table with fewer tokens than philosophers cannot deadlock.
+ * <p>The number of tokens checked out is kept in a single atomic
+ * counter, which is updated by compare-and-set, so
+ * <code>tryAcquire</code> and <code>release</code> never take a lock.
+ * Only a thread which has to block in <code>acquire</code> uses
+ * a monitor, and <code>release</code> only touches the monitor
+ * when somebody is waiting.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see TokenPhilosopher
+ */
+public interface TokenPool {
+
+    /**
+     * The total number of tokens in the pool.
+     * @return the capacity of the pool
+     */
+    int capacity();
+
+    /**
+     * The number of tokens which are not checked out.
+     * @return the number of available tokens
+     */
+    int available();
+
+    /**
+     * Try to take a token from the pool, without blocking.
+     * @return true if a token was taken
+     */
+    boolean tryAcquire();
+
+    /**
+     * Take a token from the pool, blocking until one is available
+     * or the timeout expires.
+     * @param timeout the time in milliseconds to wait
+     * @return true if a token was taken, false if the timeout expired
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    boolean acquire(long timeout) throws InterruptedException;
+
+    /**
+     * Return a token to the pool.
+     * @exception IllegalStateException thrown if no tokens are checked out
+     */
+    void release();
+
+    /**
+     * The number of tokens which have been handed out by this pool.
+     * @return the number of successful acquisitions
+     */
+    long acquisitions();
+
+    /**
+     * The number of times a token was asked for and not handed out,
+     * either because <code>tryAcquire</code> found the pool empty
+     * or because <code>acquire</code> timed out.
+     * @return the number of failed acquisitions
+     */
+    long rejections();
+
+    /**
+     * The number of times <code>acquire</code> had to block.
+     * @return the number of blocking acquisitions
+     */
+    long waits();
+
+    /**
+     * A factory for building token pools.
+     */
+    TokenPoolFactory factory = new TokenPoolFactoryImpl ();
+
+}
+
+class TokenPoolFactoryImpl implements TokenPoolFactory {
+
+    public TokenPool build (final int capacity) {
+	if (capacity < 0) { throw new IllegalArgumentException (); }
+	return new TokenPoolImpl (capacity);
+    }
+
+}
+
+class TokenPoolImpl implements TokenPool {
+
+    protected final int capacity;
+    protected final AtomicInteger tokensOut = new AtomicInteger (0);
+    protected final AtomicInteger waiters = new AtomicInteger (0);
+    protected final Object lock = new Object ();
+    protected final LongAdder acquisitions = new LongAdder ();
+    protected final LongAdder rejections = new LongAdder ();
+    protected final LongAdder waits = new LongAdder ();
+
+    protected TokenPoolImpl (final int capacity) {
+	this.capacity = capacity;
+    }
+
+    public int capacity () {
+	return capacity;
+    }
+
+    public int available () {
+	return capacity - tokensOut.get ();
+    }
+
+    // Take a token if there is one, without touching the statistics.
+    protected boolean take () {
+	while (true) {
+	    final int out = tokensOut.get ();
+	    if (out >= capacity) { return false; }
+	    if (tokensOut.compareAndSet (out, out + 1)) { return true; }
+	}
+    }
+
+    public boolean tryAcquire () {
+	if (take ()) {
+	    acquisitions.increment ();
+	    return true;
+	} else {
+	    rejections.increment ();
+	    return false;
+	}
+    }
+
+    public boolean acquire (final long timeout) throws InterruptedException {
+	if (take ()) {
+	    acquisitions.increment ();
+	    return true;
+	}
+	waits.increment ();
+	final long endTime = System.nanoTime () + timeout * 1000000L;
+	// We register as a waiter before re-checking the counter, and
+	// release() decrements the counter before checking for waiters,
+	// so at least one of us sees the other and no wakeup is lost.
+	waiters.incrementAndGet ();
+	try {
+	    synchronized (lock) {
+		while (!take ()) {
+		    final long delay = endTime - System.nanoTime ();
+		    if (delay <= 0) {
+			rejections.increment ();
+			return false;
+		    }
+		    try {
+			lock.wait (delay / 1000000L, (int)(delay % 1000000L));
+		    } catch (final InterruptedException ex) {
+			// Pass on any notification we may have swallowed
+			lock.notify ();
+			throw ex;
+		    }
+		}
+	    }
+	} finally {
+	    waiters.decrementAndGet ();
+	}
+	acquisitions.increment ();
+	return true;
+    }
+
+    public void release () {
+	while (true) {
+	    final int out = tokensOut.get ();
+	    if (out <= 0) { throw new IllegalStateException (); }
+	    if (tokensOut.compareAndSet (out, out - 1)) { break; }
+	}
+	if (waiters.get () > 0) {
+	    synchronized (lock) { lock.notify (); }
+	}
+    }
+
+    public long acquisitions () {
+	return acquisitions.sum ();
+    }
+
+    public long rejections () {
+	return rejections.sum ();
+    }
+
+    public long waits () {
+	return waits.sum ();
+    }
+
+    public String toString () {
+	return "TokenPool { capacity=" + capacity + 
+	    ", available=" + available () +
+	    ", acquisitions=" + acquisitions () +
+	    ", rejections=" + rejections () +
+	    ", waits=" + waits () + " }";
+    }
+
+}
@@ -0,0 +1,18 @@
+package ajeffrey.teaching.dining;
+
+/**
+ * A factory for building token pools.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface TokenPoolFactory {
+
+    /**
+     * Build a new token pool, with all of its tokens available.
+     * @param capacity the number of tokens in the pool
+     * @return a new token pool
+     * @exception IllegalArgumentException thrown if capacity < 0
+     */
+    TokenPool build(int capacity);
+
+}
@@ -4,9 +4,6 @@ import ajeffrey.teaching.debug.Debug;
 
 import ajeffrey.teaching.debug.StepDebugStream;
 import ajeffrey.teaching.dining.*;
-import net.jcip.annotations.GuardedBy;
-
-import java.util.concurrent.Semaphore;
 
 /**
  * A ajeffery.teaching.test of the dining philosophers, with four philosophers.
@@ -15,9 +12,6 @@ import java.util.concurrent.Semaphore;
  * @see Philosopher
  */
 public class TestPhilosopher {
-    @GuardedBy("this")public static int tokensOut = 0;
-    @GuardedBy("this")public final static int maxTokens = 3;
-    @GuardedBy("this")public final static Semaphore sem = new Semaphore(3);
 
     public static void main(String[] args) {
         // Switch on step debugging
@@ -31,7 +25,7 @@ public class TestPhilosopher {
         final Comparable fork4 = "Fork 4";
 
         // Which philosopher factory to use: you may want to edit this!
-        final PhilosopherFactory factory = TokenPhilosopher.factory;
+        final PhilosopherFactory factory = TokenPhilosopher.factory.newTable();
 
         // Create the philosophers
         final Philosopher fred = factory.build(fork1, fork2, "Fred");
@@ -0,0 +1,251 @@
+package ajeffrey.teaching.util.buffer;
+
+import ajeffrey.teaching.util.time.TimeoutException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An interface for thread-safe buffers which can block.
+ * As well as the <code>put</code> and <code>get</code> methods from
+ * Buffer, which throw an exception if the buffer is full or empty,
+ * a blocking buffer has <code>blockingPut</code> and
+ * <code>blockingGet</code> methods, which wait until there is room
+ * or there is an element.
+ * <p>The implementation uses one lock with two conditions, one for
+ * producers waiting for the buffer to be not full and one for
+ * consumers waiting for it to be not empty, so a put only ever wakes
+ * a consumer and a get only ever wakes a producer.  This makes it
+ * suitable as the handoff between stages of a pipeline.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface BlockingBuffer extends Buffer {
+
+    /**
+     * Add an object into the buffer, blocking while the buffer is full.
+     * The object should not be null.
+     * @param object the object to add
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     * @exception IllegalArgumentException thrown if object==null
+     */
+    void blockingPut(Object object) throws InterruptedException;
+
+    /**
+     * Add an object into the buffer, blocking while the buffer is full,
+     * but timing out.
+     * The object should not be null.
+     * @param object the object to add
+     * @param timeout the time in milliseconds to wait
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     * @exception TimeoutException thrown if the buffer is still full
+     *   after the timeout
+     * @exception IllegalArgumentException thrown if object==null
+     */
+    void blockingPut(Object object, long timeout) throws InterruptedException, TimeoutException;
+
+    /**
+     * Get an object from the buffer, blocking while the buffer is empty.
+     * This method will never return null.
+     * @return an object from the buffer
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    Object blockingGet() throws InterruptedException;
+
+    /**
+     * Get an object from the buffer, blocking while the buffer is empty,
+     * but timing out.
+     * This method will never return null.
+     * @param timeout the time in milliseconds to wait
+     * @return an object from the buffer
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     * @exception TimeoutException thrown if the buffer is still empty
+     *   after the timeout
+     */
+    Object blockingGet(long timeout) throws InterruptedException, TimeoutException;
+
+    /**
+     * A factory for building blocking buffers.
+     */
+    BlockingBufferFactory factory = new BlockingBufferFactoryImpl ();
+
+}
+
+class BlockingBufferFactoryImpl implements BlockingBufferFactory {
+
+    public BlockingBuffer build (final int capacity) { 
+	BufferChecks.checkCapacity (capacity);
+	return new BlockingBufferImpl (capacity);
+    }
+
+}
+
+class BlockingBufferImpl implements BlockingBuffer {
+
+    protected final int capacity;
+    protected final Object[] contents;
+    protected final ReentrantLock lock = new ReentrantLock ();
+    protected final Condition notFull = lock.newCondition ();
+    protected final Condition notEmpty = lock.newCondition ();
+    protected int first = 0;
+    protected int last = 0;
+    // Volatile, so size () can be read without the lock
+    protected volatile int size = 0;
+
+    BlockingBufferImpl (final int capacity) {
+	this.capacity = capacity;
+	this.contents = new Object[capacity];
+    }
+
+    public int capacity () { 
+	return capacity; 
+    }
+
+    public int size () { 
+	return size; 
+    }
+
+    // Only called with the lock held, and when the buffer is not full
+    protected void insert (final Object object) {
+	contents[last] = object;
+	last = (last + 1 == capacity) ? 0 : last + 1;
+	size = size + 1;
+	notEmpty.signal ();
+    }
+
+    // Only called with the lock held, and when the buffer is not empty
+    protected Object remove () {
+	final Object result = contents[first];
+	contents[first] = null;
+	first = (first + 1 == capacity) ? 0 : first + 1;
+	size = size - 1;
+	notFull.signal ();
+	return result;
+    }
+
+    public void put (final Object object) {
+	if (object == null) { throw new IllegalArgumentException (); }
+	lock.lock ();
+	try {
+	    if (size == capacity) { throw new BufferFullException (); }
+	    insert (object);
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public Object get () {
+	lock.lock ();
+	try {
+	    if (size == 0) { throw new BufferEmptyException (); }
+	    return remove ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int putAll (final Object[] objects, final int offset, final int length) {
+	BufferChecks.checkNotNull (objects, offset, length);
+	lock.lock ();
+	try {
+	    final int count = Math.min (length, capacity - size);
+	    RingCopy.copyIn (objects, offset, contents, capacity, last, count);
+	    last = (last + count) % capacity;
+	    size = size + count;
+	    for (int i=0; i < count; i++) { notEmpty.signal (); }
+	    return count;
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int drainTo (final Object[] objects, final int offset, final int maxLength) {
+	BufferChecks.checkRange (objects, offset, maxLength);
+	lock.lock ();
+	try {
+	    final int count = Math.min (maxLength, size);
+	    RingCopy.copyOut (contents, capacity, first, objects, offset, count);
+	    RingCopy.clear (contents, first, count);
+	    first = (first + count) % capacity;
+	    size = size - count;
+	    for (int i=0; i < count; i++) { notFull.signal (); }
+	    return count;
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public void blockingPut (final Object object) throws InterruptedException {
+	if (object == null) { throw new IllegalArgumentException (); }
+	lock.lockInterruptibly ();
+	try {
+	    while (size == capacity) { notFull.await (); }
+	    insert (object);
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public void blockingPut (final Object object, final long timeout) 
+	throws InterruptedException, TimeoutException 
+    {
+	if (object == null) { throw new IllegalArgumentException (); }
+	lock.lockInterruptibly ();
+	try {
+	    long delay = TimeUnit.MILLISECONDS.toNanos (timeout);
+	    while (size == capacity) {
+		if (delay <= 0) { throw new TimeoutException (); }
+		delay = notFull.awaitNanos (delay);
+	    }
+	    insert (object);
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public Object blockingGet () throws InterruptedException {
+	lock.lockInterruptibly ();
+	try {
+	    while (size == 0) { notEmpty.await (); }
+	    return remove ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public Object blockingGet (final long timeout) throws InterruptedException, TimeoutException {
+	lock.lockInterruptibly ();
+	try {
+	    long delay = TimeUnit.MILLISECONDS.toNanos (timeout);
+	    while (size == 0) {
+		if (delay <= 0) { throw new TimeoutException (); }
+		delay = notEmpty.awaitNanos (delay);
+	    }
+	    return remove ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public String toString () {
+	lock.lock ();
+	try {
+	    final StringBuffer result = new StringBuffer 
+		("BlockingBuffer { capacity=" + capacity + ", size=" + size + 
+		 ", first=" + first + ", last=" + last);
+	    for (int i=0; i<capacity; i++) {
+		result.append (", contents[" + i + "]=" + contents[i]);
+	    }
+	    result.append (" }");
+	    return result.toString ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+}
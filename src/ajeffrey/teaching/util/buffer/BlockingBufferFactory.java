@@ -0,0 +1,18 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * A factory for building blocking buffers.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface BlockingBufferFactory extends BufferFactory {
+
+    /**
+     * Build a new blocking buffer.
+     * @param capacity the maximum size of the buffer
+     * @return a new blocking buffer
+     * @exception IllegalArgumentException thrown if capacity <= 0
+     */
+    BlockingBuffer build(int capacity);
+
+}
@@ -0,0 +1,23 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * The contract shared by every kind of buffer, whether it holds
+ * objects or primitive values: a fixed capacity, and a current size.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface Bounded {
+
+    /**
+     * The maximum number of elements the buffer can contain.
+     * @return the capacity of the buffer
+     */
+    int capacity();
+
+    /**
+     * The number of elements the buffer currently contains.
+     * @return the size of the buffer
+     */
+    int size();
+
+}
@@ -5,19 +5,7 @@ package ajeffrey.teaching.util.buffer;
  * @author Alan Jeffrey
  * @version 1.0.1
  */
-public interface Buffer {
-
-    /**
-     * The maximum number of elements the buffer can contain.
-     * @return the capacity of the buffer
-     */
-    int capacity();
-
-    /**
-     * The number of elements the buffer currently contains.
-     * @return the size of the buffer
-     */
-    int size();
+public interface Buffer extends Bounded {
 
     /**
      * Add an object into the buffer.
@@ -36,4 +24,32 @@ public interface Buffer {
      */
     Object get();
 
+    /**
+     * Add objects from an array into the buffer, until either the
+     * objects run out or the buffer is full.  None of the objects
+     * should be null.
+     * @param objects the array to copy from
+     * @param offset the index of the first object in the array
+     * @param length the number of objects to add
+     * @return the number of objects added, which is less than length
+     *   if the buffer filled up
+     * @exception IllegalArgumentException thrown if one of the objects is null
+     * @exception IndexOutOfBoundsException thrown if the range is not
+     *   in the array
+     */
+    int putAll(Object[] objects, int offset, int length);
+
+    /**
+     * Get objects from the buffer into an array, until either the
+     * buffer is empty or the limit is reached.
+     * @param objects the array to copy into
+     * @param offset the index in the array of the first object
+     * @param maxLength the largest number of objects to get
+     * @return the number of objects got, which is less than maxLength
+     *   if the buffer emptied
+     * @exception IndexOutOfBoundsException thrown if the range is not
+     *   in the array
+     */
+    int drainTo(Object[] objects, int offset, int maxLength);
+
 }
@@ -0,0 +1,30 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * Argument checks shared by the buffer implementations.
+ */
+final class BufferChecks {
+
+    static void checkCapacity (final int capacity) {
+	if (capacity <= 0) { throw new IllegalArgumentException ("capacity = " + capacity); }
+    }
+
+    static void checkRange (final Object[] objects, final int offset, final int length) {
+	checkRange (objects.length, offset, length);
+    }
+
+    static void checkRange (final int arrayLength, final int offset, final int length) {
+	if (offset < 0 || length < 0 || offset > arrayLength - length) {
+	    throw new IndexOutOfBoundsException 
+		("offset=" + offset + ", length=" + length + ", array length=" + arrayLength);
+	}
+    }
+
+    static void checkNotNull (final Object[] objects, final int offset, final int length) {
+	checkRange (objects, offset, length);
+	for (int i=offset; i < offset + length; i++) {
+	    if (objects[i] == null) { throw new IllegalArgumentException (); }
+	}
+    }
+
+}
@@ -0,0 +1,98 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * An interface for ring buffers of bytes.
+ * This is the same as LongRingBuffer, except that the values are
+ * kept in a byte[] array.
+ * <p>This is not called ByteBuffer, to avoid shadowing
+ * <code>java.nio.ByteBuffer</code>, which is used by MappedBuffer
+ * in this package.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface ByteRingBuffer extends Bounded {
+
+    /**
+     * Add a value into the buffer.
+     * @param value the value to add
+     * @exception BufferFullException thrown if the buffer is full
+     */
+    void put(byte value);
+
+    /**
+     * Get a value from the buffer.
+     * @return a value from the buffer
+     * @exception BufferEmptyException thrown if the buffer is empty
+     */
+    byte get();
+
+    /**
+     * Add values from an array into the buffer, until either the
+     * values run out or the buffer is full.
+     * @param values the array to copy from
+     * @param offset the index of the first value in the array
+     * @param length the number of values to add
+     * @return the number of values added
+     * @exception IndexOutOfBoundsException thrown if the range is not
+     *   in the array
+     */
+    int putAll(byte[] values, int offset, int length);
+
+    /**
+     * Get values from the buffer into an array, until either the
+     * buffer is empty or the limit is reached.
+     * @param values the array to copy into
+     * @param offset the index in the array of the first value
+     * @param maxLength the largest number of values to get
+     * @return the number of values got
+     * @exception IndexOutOfBoundsException thrown if the range is not
+     *   in the array
+     */
+    int drainTo(byte[] values, int offset, int maxLength);
+
+    /**
+     * A factory for building byte buffers.
+     */
+    ByteRingBufferFactory factory = new ByteRingBufferFactoryImpl ();
+
+}
+
+class ByteRingBufferFactoryImpl implements ByteRingBufferFactory {
+
+    public ByteRingBuffer build (final int capacity) { 
+	BufferChecks.checkCapacity (capacity);
+	return new ByteRingBufferImpl (capacity);
+    }
+
+}
+
+class ByteRingBufferImpl extends PrimitiveBufferImpl implements ByteRingBuffer {
+
+    protected final byte[] values;
+
+    ByteRingBufferImpl (final int capacity) {
+	this (new byte[capacity]);
+    }
+
+    private ByteRingBufferImpl (final byte[] values) {
+	super ("ByteRingBuffer", values.length, values);
+	this.values = values;
+    }
+
+    public void put (final byte value) {
+	synchronized (lock) { values[putSlot ()] = value; }
+    }
+
+    public byte get () {
+	synchronized (lock) { return values[getSlot ()]; }
+    }
+
+    public int putAll (final byte[] values, final int offset, final int length) {
+	return putAll (values, values.length, offset, length);
+    }
+
+    public int drainTo (final byte[] values, final int offset, final int maxLength) {
+	return drainTo (values, values.length, offset, maxLength);
+    }
+
+}
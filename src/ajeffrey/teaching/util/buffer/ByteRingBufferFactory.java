@@ -0,0 +1,18 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * A factory for building byte buffers.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface ByteRingBufferFactory {
+
+    /**
+     * Build a new byte buffer.
+     * @param capacity the maximum size of the buffer
+     * @return a new byte buffer
+     * @exception IllegalArgumentException thrown if capacity <= 0
+     */
+    ByteRingBuffer build(int capacity);
+
+}
@@ -0,0 +1,95 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * An interface for ring buffers of ints.
+ * This is the same as LongRingBuffer, except that the values are
+ * kept in an int[] array.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface IntRingBuffer extends Bounded {
+
+    /**
+     * Add a value into the buffer.
+     * @param value the value to add
+     * @exception BufferFullException thrown if the buffer is full
+     */
+    void put(int value);
+
+    /**
+     * Get a value from the buffer.
+     * @return a value from the buffer
+     * @exception BufferEmptyException thrown if the buffer is empty
+     */
+    int get();
+
+    /**
+     * Add values from an array into the buffer, until either the
+     * values run out or the buffer is full.
+     * @param values the array to copy from
+     * @param offset the index of the first value in the array
+     * @param length the number of values to add
+     * @return the number of values added
+     * @exception IndexOutOfBoundsException thrown if the range is not
+     *   in the array
+     */
+    int putAll(int[] values, int offset, int length);
+
+    /**
+     * Get values from the buffer into an array, until either the
+     * buffer is empty or the limit is reached.
+     * @param values the array to copy into
+     * @param offset the index in the array of the first value
+     * @param maxLength the largest number of values to get
+     * @return the number of values got
+     * @exception IndexOutOfBoundsException thrown if the range is not
+     *   in the array
+     */
+    int drainTo(int[] values, int offset, int maxLength);
+
+    /**
+     * A factory for building int ring buffers.
+     */
+    IntRingBufferFactory factory = new IntRingBufferFactoryImpl ();
+
+}
+
+class IntRingBufferFactoryImpl implements IntRingBufferFactory {
+
+    public IntRingBuffer build (final int capacity) { 
+	BufferChecks.checkCapacity (capacity);
+	return new IntRingBufferImpl (capacity);
+    }
+
+}
+
+class IntRingBufferImpl extends PrimitiveBufferImpl implements IntRingBuffer {
+
+    protected final int[] values;
+
+    IntRingBufferImpl (final int capacity) {
+	this (new int[capacity]);
+    }
+
+    private IntRingBufferImpl (final int[] values) {
+	super ("IntRingBuffer", values.length, values);
+	this.values = values;
+    }
+
+    public void put (final int value) {
+	synchronized (lock) { values[putSlot ()] = value; }
+    }
+
+    public int get () {
+	synchronized (lock) { return values[getSlot ()]; }
+    }
+
+    public int putAll (final int[] values, final int offset, final int length) {
+	return putAll (values, values.length, offset, length);
+    }
+
+    public int drainTo (final int[] values, final int offset, final int maxLength) {
+	return drainTo (values, values.length, offset, maxLength);
+    }
+
+}
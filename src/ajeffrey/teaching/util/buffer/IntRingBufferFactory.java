@@ -0,0 +1,18 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * A factory for building int ring buffers.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface IntRingBufferFactory {
+
+    /**
+     * Build a new int ring buffer.
+     * @param capacity the maximum size of the buffer
+     * @return a new int ring buffer
+     * @exception IllegalArgumentException thrown if capacity <= 0
+     */
+    IntRingBuffer build(int capacity);
+
+}
@@ -0,0 +1,100 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * An interface for ring buffers of longs.
+ * This is the same as Buffer, except that the values are kept in
+ * a long[] array, so putting and getting them never boxes.
+ * Buffers built by the factory are thread-safe.
+ * <p>This is not called LongBuffer, to avoid shadowing
+ * <code>java.nio.LongBuffer</code>.  IntRingBuffer and
+ * ByteRingBuffer are the same for ints and bytes, and all three
+ * share their implementation.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface LongRingBuffer extends Bounded {
+
+    /**
+     * Add a value into the buffer.
+     * @param value the value to add
+     * @exception BufferFullException thrown if the buffer is full
+     */
+    void put(long value);
+
+    /**
+     * Get a value from the buffer.
+     * @return a value from the buffer
+     * @exception BufferEmptyException thrown if the buffer is empty
+     */
+    long get();
+
+    /**
+     * Add values from an array into the buffer, until either the
+     * values run out or the buffer is full.
+     * @param values the array to copy from
+     * @param offset the index of the first value in the array
+     * @param length the number of values to add
+     * @return the number of values added
+     * @exception IndexOutOfBoundsException thrown if the range is not
+     *   in the array
+     */
+    int putAll(long[] values, int offset, int length);
+
+    /**
+     * Get values from the buffer into an array, until either the
+     * buffer is empty or the limit is reached.
+     * @param values the array to copy into
+     * @param offset the index in the array of the first value
+     * @param maxLength the largest number of values to get
+     * @return the number of values got
+     * @exception IndexOutOfBoundsException thrown if the range is not
+     *   in the array
+     */
+    int drainTo(long[] values, int offset, int maxLength);
+
+    /**
+     * A factory for building long ring buffers.
+     */
+    LongRingBufferFactory factory = new LongRingBufferFactoryImpl ();
+
+}
+
+class LongRingBufferFactoryImpl implements LongRingBufferFactory {
+
+    public LongRingBuffer build (final int capacity) { 
+	BufferChecks.checkCapacity (capacity);
+	return new LongRingBufferImpl (capacity);
+    }
+
+}
+
+class LongRingBufferImpl extends PrimitiveBufferImpl implements LongRingBuffer {
+
+    protected final long[] values;
+
+    LongRingBufferImpl (final int capacity) {
+	this (new long[capacity]);
+    }
+
+    private LongRingBufferImpl (final long[] values) {
+	super ("LongRingBuffer", values.length, values);
+	this.values = values;
+    }
+
+    public void put (final long value) {
+	synchronized (lock) { values[putSlot ()] = value; }
+    }
+
+    public long get () {
+	synchronized (lock) { return values[getSlot ()]; }
+    }
+
+    public int putAll (final long[] values, final int offset, final int length) {
+	return putAll (values, values.length, offset, length);
+    }
+
+    public int drainTo (final long[] values, final int offset, final int maxLength) {
+	return drainTo (values, values.length, offset, maxLength);
+    }
+
+}
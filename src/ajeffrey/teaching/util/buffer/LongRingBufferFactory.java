@@ -0,0 +1,18 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * A factory for building long ring buffers.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface LongRingBufferFactory {
+
+    /**
+     * Build a new long ring buffer.
+     * @param capacity the maximum size of the buffer
+     * @return a new long ring buffer
+     * @exception IllegalArgumentException thrown if capacity <= 0
+     */
+    LongRingBuffer build(int capacity);
+
+}
@@ -0,0 +1,331 @@
+package ajeffrey.teaching.util.buffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+/**
+ * A ring buffer of fixed-size byte records, kept in a memory-mapped
+ * file, so that two processes on the same host can pass records to
+ * each other through shared memory, and the records survive either
+ * process crashing.
+ * <p>The file starts with a header holding the capacity, record size,
+ * and the head and tail counters (on separate cache lines), followed
+ * by the slots, each of which holds a record's length and its bytes.
+ * As in SpscBuffer, there must be one producer and one consumer, which
+ * may be in different processes, and the counters only ever increase.
+ * A producer writes the record into the slot and then publishes the
+ * new tail; a consumer reads the tail, then the record, and then
+ * publishes the new head.</p>
+ * <p>Java 8 has no public way to make an ordered access to mapped
+ * memory (that needs VarHandles, from Java 9), so the ordering between
+ * a record and its counter uses the explicit fences in
+ * <code>sun.misc.Unsafe</code>, which order the accesses for both the
+ * JIT and the CPU: a load fence after reading a counter, and a store
+ * fence (or, after reading a record, a load fence) before writing
+ * one.  This needs a JVM which has <code>sun.misc.Unsafe</code>, as
+ * HotSpot and OpenJ9 do.  It also relies on an aligned
+ * <code>putLong</code> on a direct buffer being a single store, so
+ * the other process never sees half a counter.</p>
+ * <p>Records written to the mapping survive the process crashing, since
+ * they are in the operating system's page cache, but only survive the
+ * host crashing once <code>force</code> has written them to disk.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface MappedBuffer extends Bounded {
+
+    /**
+     * The largest size of a record.
+     * @return the record size in bytes
+     */
+    int recordSize();
+
+    /**
+     * Add a record into the buffer.  Only the producer may call this.
+     * @param record the array holding the record
+     * @param offset the index of the record in the array
+     * @param length the length of the record, at most recordSize ()
+     * @exception BufferFullException thrown if the buffer is full
+     * @exception IllegalArgumentException thrown if length > recordSize ()
+     * @exception IndexOutOfBoundsException thrown if the record is not
+     *   in the array
+     */
+    void put(byte[] record, int offset, int length);
+
+    /**
+     * Get a record from the buffer into an array, without allocating.
+     * Only the consumer may call this.
+     * @param record the array to copy the record into
+     * @param offset the index in the array to copy the record to
+     * @return the length of the record
+     * @exception BufferEmptyException thrown if the buffer is empty
+     * @exception IndexOutOfBoundsException thrown if the record does not
+     *   fit in the array, in which case it stays in the buffer
+     */
+    int get(byte[] record, int offset);
+
+    /**
+     * Get a record from the buffer.  Only the consumer may call this.
+     * @return a new array holding the record
+     * @exception BufferEmptyException thrown if the buffer is empty
+     */
+    byte[] get();
+
+    /**
+     * Write any changes to the buffer out to the file, so they
+     * survive the host crashing.
+     */
+    void force();
+
+    /**
+     * A factory for building memory-mapped buffers.
+     */
+    MappedBufferFactory factory = new MappedBufferFactoryImpl ();
+
+}
+
+class MappedBufferFactoryImpl implements MappedBufferFactory {
+
+    // File locks are held by the whole JVM, and a second attempt to
+    // lock a file from the same JVM throws rather than blocks, so
+    // threads in this JVM take turns before locking.
+    protected final Object lock = new Object ();
+
+    public MappedBuffer build (final File file, final int capacity, final int recordSize) 
+	throws IOException
+    {
+	if (capacity <= 0 || capacity > (1 << 30)) { 
+	    throw new IllegalArgumentException ("capacity = " + capacity); 
+	}
+	if (recordSize <= 0) { throw new IllegalArgumentException ("recordSize = " + recordSize); }
+	int slots = 1;
+	while (slots < capacity) { slots *= 2; }
+	final long slotSize = MappedBufferImpl.slotSize (recordSize);
+	final long length = MappedBufferImpl.HEADER + slots * slotSize;
+	if (length > Integer.MAX_VALUE) { 
+	    throw new IllegalArgumentException ("file would be " + length + " bytes"); 
+	}
+	synchronized (lock) {
+	    final RandomAccessFile raf = new RandomAccessFile (file, "rw");
+	    try {
+		// Lock the file while we check and set up the header, so that
+		// two processes opening a new file do not both set it up
+		final FileLock fileLock = raf.getChannel ().lock ();
+		try {
+		    final long oldLength = raf.length ();
+		    if (oldLength != 0 && oldLength != length) {
+			throw new IOException (file + " is not a buffer of " + slots + " records of " + recordSize + " bytes");
+		    }
+		    // The mapping stays valid after the file is closed
+		    final MappedByteBuffer mapped = raf.getChannel ().map (FileChannel.MapMode.READ_WRITE, 0, length);
+		    // The magic number is written last, so a file without
+		    // one was never finished being set up
+		    final boolean fresh = (oldLength == 0) || 
+			(mapped.getInt (MappedBufferImpl.MAGIC_OFFSET) == 0);
+		    return new MappedBufferImpl (mapped, slots, recordSize, fresh, file);
+		} finally {
+		    fileLock.release ();
+		}
+	    } finally {
+		raf.close ();
+	    }
+	}
+    }
+
+}
+
+class MappedBufferImpl implements MappedBuffer {
+
+    // The layout of the header.  The head and tail are on separate
+    // 64-byte cache lines, and the slots start on another.
+    static final int MAGIC = 0x52494e47; // "RING"
+    static final int VERSION = 1;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int CAPACITY_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int HEAD_OFFSET = 64;
+    static final int TAIL_OFFSET = 128;
+    static final int HEADER = 192;
+
+    // A slot is the record's length followed by its bytes, rounded
+    // up to a multiple of 8 so every length field is aligned
+    static long slotSize (final int recordSize) {
+	return ((4L + recordSize + 7) / 8) * 8;
+    }
+
+    protected final MappedByteBuffer mapped;
+    // Separate views for the producer and consumer, since bulk
+    // copies in Java 8 go through a buffer's position
+    protected final ByteBuffer producerView;
+    protected final ByteBuffer consumerView;
+    protected final int capacity;
+    protected final int mask;
+    protected final int recordSize;
+    protected final int slotSize;
+    // Only touched by the producer and consumer respectively
+    protected long cachedHead;
+    protected long cachedTail;
+
+    // The fences (see the class comment).  Unsafe is not API, so we
+    // find it reflectively, and the JIT inlines calls through a
+    // static final method handle.
+    static final MethodHandle LOAD_FENCE = fence ("loadFence");
+    static final MethodHandle STORE_FENCE = fence ("storeFence");
+
+    static MethodHandle fence (final String name) {
+	try {
+	    final Class unsafeClass = Class.forName ("sun.misc.Unsafe");
+	    final Field field = unsafeClass.getDeclaredField ("theUnsafe");
+	    field.setAccessible (true);
+	    return MethodHandles.lookup ()
+		.findVirtual (unsafeClass, name, MethodType.methodType (void.class))
+		.bindTo (field.get (null));
+	} catch (final Exception ex) {
+	    throw new ExceptionInInitializerError (ex);
+	}
+    }
+
+    // Loads before the fence are not reordered with loads or stores after it
+    static void loadFence () {
+	try {
+	    LOAD_FENCE.invokeExact ();
+	} catch (final Throwable ex) {
+	    throw new Error (ex);
+	}
+    }
+
+    // Stores before the fence are not reordered with loads or stores after it
+    static void storeFence () {
+	try {
+	    STORE_FENCE.invokeExact ();
+	} catch (final Throwable ex) {
+	    throw new Error (ex);
+	}
+    }
+
+    MappedBufferImpl 
+	(final MappedByteBuffer mapped, final int capacity, final int recordSize, 
+	 final boolean fresh, final File file) 
+	throws IOException
+    {
+	this.mapped = mapped;
+	this.producerView = mapped.duplicate ();
+	this.consumerView = mapped.duplicate ();
+	this.capacity = capacity;
+	this.mask = capacity - 1;
+	this.recordSize = recordSize;
+	this.slotSize = (int)(slotSize (recordSize));
+	if (fresh) {
+	    mapped.putInt (VERSION_OFFSET, VERSION);
+	    mapped.putInt (CAPACITY_OFFSET, capacity);
+	    mapped.putInt (RECORD_SIZE_OFFSET, recordSize);
+	    mapped.putLong (HEAD_OFFSET, 0);
+	    mapped.putLong (TAIL_OFFSET, 0);
+	    // Only mark the file as a buffer once the header is complete
+	    storeFence ();
+	    mapped.putInt (MAGIC_OFFSET, MAGIC);
+	    mapped.force ();
+	} else if (mapped.getInt (MAGIC_OFFSET) != MAGIC ||
+		   mapped.getInt (VERSION_OFFSET) != VERSION ||
+		   mapped.getInt (CAPACITY_OFFSET) != capacity ||
+		   mapped.getInt (RECORD_SIZE_OFFSET) != recordSize) 
+	{
+	    throw new IOException (file + " is not a buffer of " + capacity + " records of " + recordSize + " bytes");
+	}
+	this.cachedHead = mapped.getLong (HEAD_OFFSET);
+	this.cachedTail = mapped.getLong (TAIL_OFFSET);
+    }
+
+    public int capacity () { 
+	return capacity; 
+    }
+
+    public int recordSize () { 
+	return recordSize; 
+    }
+
+    public int size () { 
+	final long head = mapped.getLong (HEAD_OFFSET);
+	// The tail is read after the head, so the size is never negative
+	loadFence ();
+	return (int)(mapped.getLong (TAIL_OFFSET) - head);
+    }
+
+    protected int slotOffset (final long index) {
+	return HEADER + ((int)index & mask) * slotSize;
+    }
+
+    public void put (final byte[] record, final int offset, final int length) {
+	if (offset < 0 || length < 0 || offset > record.length - length) {
+	    throw new IndexOutOfBoundsException 
+		("offset=" + offset + ", length=" + length + ", array length=" + record.length);
+	}
+	if (length > recordSize) { throw new IllegalArgumentException ("length = " + length); }
+	final long tail = mapped.getLong (TAIL_OFFSET);
+	if (tail - cachedHead >= capacity) {
+	    cachedHead = mapped.getLong (HEAD_OFFSET);
+	    if (tail - cachedHead >= capacity) { throw new BufferFullException (); }
+	}
+	// Acquire: the consumer has finished with the slot before we reuse it
+	loadFence ();
+	final int slot = slotOffset (tail);
+	producerView.putInt (slot, length);
+	producerView.position (slot + 4);
+	producerView.put (record, offset, length);
+	// Release: the record is written before the tail is published
+	storeFence ();
+	mapped.putLong (TAIL_OFFSET, tail + 1);
+    }
+
+    public int get (final byte[] record, final int offset) {
+	final long head = mapped.getLong (HEAD_OFFSET);
+	if (head >= cachedTail) {
+	    cachedTail = mapped.getLong (TAIL_OFFSET);
+	    if (head >= cachedTail) { throw new BufferEmptyException (); }
+	}
+	// Acquire: the record was written before the tail we read
+	loadFence ();
+	final int slot = slotOffset (head);
+	final int length = consumerView.getInt (slot);
+	if (offset < 0 || offset > record.length - length) {
+	    throw new IndexOutOfBoundsException 
+		("offset=" + offset + ", record length=" + length + ", array length=" + record.length);
+	}
+	consumerView.position (slot + 4);
+	consumerView.get (record, offset, length);
+	// Release: we have read the record before the producer can reuse
+	// the slot.  The record was loaded, so this needs a load fence.
+	loadFence ();
+	mapped.putLong (HEAD_OFFSET, head + 1);
+	return length;
+    }
+
+    public byte[] get () {
+	final byte[] record = new byte[recordSize];
+	final int length = get (record, 0);
+	if (length == recordSize) { return record; }
+	final byte[] result = new byte[length];
+	System.arraycopy (record, 0, result, 0, length);
+	return result;
+    }
+
+    public void force () {
+	mapped.force ();
+    }
+
+    public String toString () {
+	return "MappedBuffer { capacity=" + capacity + ", recordSize=" + recordSize + 
+	    ", head=" + mapped.getLong (HEAD_OFFSET) + ", tail=" + mapped.getLong (TAIL_OFFSET) + " }";
+    }
+
+}
@@ -0,0 +1,36 @@
+package ajeffrey.teaching.util.buffer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A factory for building memory-mapped buffers.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface MappedBufferFactory {
+
+    /**
+     * Build a memory-mapped buffer backed by a file.  If the file is
+     * empty or does not exist, it is created and set up as an empty
+     * buffer.  Otherwise it must be a buffer built earlier with the
+     * same capacity and record size, and its contents are kept, so a
+     * process can pick up where it (or a process which crashed) left off.
+     * <p>Each process that uses the buffer builds its own view of it
+     * from the same file.  The file is locked while its header is
+     * checked and set up, so two processes may open a new file at the
+     * same time: only one of them sets it up.  A file whose set-up
+     * was cut short by a crash is set up again.</p>
+     * @param file the file to map
+     * @param capacity the number of records the buffer can hold,
+     *   rounded up to a power of two
+     * @param recordSize the largest size of a record in bytes
+     * @return a new view of the buffer in the file
+     * @exception IOException thrown if the file cannot be mapped, or
+     *   holds a buffer with a different capacity or record size
+     * @exception IllegalArgumentException thrown if capacity or
+     *   recordSize is not positive, or the file would be over 2GB
+     */
+    MappedBuffer build(File file, int capacity, int recordSize) throws IOException;
+
+}
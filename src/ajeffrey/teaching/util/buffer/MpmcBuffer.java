@@ -0,0 +1,193 @@
+package ajeffrey.teaching.util.buffer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free ring buffer for any number of producer and consumer
+ * threads, after Dmitry Vyukov's bounded MPMC queue.
+ * <p>As in SpscBuffer, the head and tail indices only ever increase,
+ * are padded onto separate cache lines, and the capacity is a power
+ * of two.  As well, each slot has a sequence number, which says
+ * whose turn it is: a slot whose sequence is <code>i</code> is free
+ * for the producer claiming index <code>i</code>, and one whose
+ * sequence is <code>i+1</code> holds the element for the consumer
+ * claiming index <code>i</code>.  So a put is a compare-and-set on
+ * the tail, a store into the slot, and a release store of the slot's
+ * sequence; a get is the same with the head.  There is no global lock,
+ * and producers and consumers only contend with each other for
+ * individual slots.</p>
+ * <p>If a slot has been claimed, but the thread which claimed it has
+ * not yet published it, the buffer is neither full nor empty, so
+ * <code>put</code> and <code>get</code> yield until it has been
+ * published, rather than throwing an exception.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface MpmcBuffer {
+
+    /**
+     * A factory for building multi-producer multi-consumer buffers.
+     * The capacity is rounded up to a power of two.
+     */
+    BufferFactory factory = new MpmcBufferFactoryImpl ();
+
+}
+
+class MpmcBufferFactoryImpl implements BufferFactory {
+
+    public Buffer build (final int capacity) { 
+	if (capacity <= 0 || capacity > (1 << 30)) { 
+	    throw new IllegalArgumentException ("capacity = " + capacity); 
+	}
+	int size = 1;
+	while (size < capacity) { size *= 2; }
+	return new MpmcBufferImpl (size);
+    }
+
+}
+
+class MpmcBufferImpl implements Buffer {
+
+    // The same padding as SpscBufferImpl
+    static final int PADDING = 16;
+    static final int HEAD = PADDING;
+    static final int TAIL = 2 * PADDING;
+
+    protected final int capacity;
+    protected final int mask;
+    protected final Object[] contents;
+    protected final AtomicLongArray sequences;
+    protected final AtomicLongArray indices = new AtomicLongArray (3 * PADDING);
+
+    MpmcBufferImpl (final int capacity) {
+	this.capacity = capacity;
+	this.mask = capacity - 1;
+	this.contents = new Object[capacity];
+	this.sequences = new AtomicLongArray (capacity);
+	for (int i=0; i < capacity; i++) { sequences.set (i, i); }
+    }
+
+    public int capacity () { 
+	return capacity; 
+    }
+
+    public int size () { 
+	// Read the head first, so the size can never look negative
+	final long head = indices.get (HEAD);
+	final long size = indices.get (TAIL) - head;
+	return (int)(Math.min (size, capacity));
+    }
+
+    public void put (final Object object) {
+	if (object == null) { throw new IllegalArgumentException (); }
+	while (true) {
+	    final long tail = indices.get (TAIL);
+	    final int slot = (int)tail & mask;
+	    final long difference = sequences.get (slot) - tail;
+	    if (difference == 0) {
+		if (indices.compareAndSet (TAIL, tail, tail + 1)) {
+		    contents[slot] = object;
+		    // Release store: consumers cannot see the sequence before the slot
+		    sequences.lazySet (slot, tail + 1);
+		    return;
+		}
+	    } else if (difference < 0) {
+		// The slot still holds the element from the last lap
+		if (indices.get (HEAD) + capacity <= tail) { throw new BufferFullException (); }
+		// A consumer has claimed it, but not finished with it yet
+		Thread.yield ();
+	    }
+	    // Otherwise another producer got here first, so try again
+	}
+    }
+
+    public Object get () {
+	while (true) {
+	    final long head = indices.get (HEAD);
+	    final int slot = (int)head & mask;
+	    final long difference = sequences.get (slot) - (head + 1);
+	    if (difference == 0) {
+		if (indices.compareAndSet (HEAD, head, head + 1)) {
+		    final Object result = contents[slot];
+		    contents[slot] = null;
+		    // Release store: the slot is free for the next lap's producer
+		    sequences.lazySet (slot, head + capacity);
+		    return result;
+		}
+	    } else if (difference < 0) {
+		// The slot has not been filled yet
+		if (indices.get (TAIL) <= head) { throw new BufferEmptyException (); }
+		// A producer has claimed it, but not filled it yet
+		Thread.yield ();
+	    }
+	    // Otherwise another consumer got here first, so try again
+	}
+    }
+
+    // Claims a run of free slots from the tail with one compare-and-set,
+    // then copies into them in at most two chunks.  Each slot still has
+    // to be published with its own sequence number.
+    public int putAll (final Object[] objects, final int offset, final int length) {
+	BufferChecks.checkNotNull (objects, offset, length);
+	int done = 0;
+	while (done < length) {
+	    final long tail = indices.get (TAIL);
+	    int count = 0;
+	    while (done + count < length && count < capacity &&
+		   sequences.get ((int)(tail + count) & mask) == tail + count) 
+	    {
+		count++;
+	    }
+	    if (count == 0) {
+		final long difference = sequences.get ((int)tail & mask) - tail;
+		if (difference < 0) {
+		    if (indices.get (HEAD) + capacity <= tail) { return done; }
+		    Thread.yield ();
+		}
+	    } else if (indices.compareAndSet (TAIL, tail, tail + count)) {
+		RingCopy.copyIn (objects, offset + done, contents, capacity, (int)tail & mask, count);
+		for (int i=0; i < count; i++) {
+		    sequences.lazySet ((int)(tail + i) & mask, tail + i + 1);
+		}
+		done = done + count;
+	    }
+	}
+	return done;
+    }
+
+    public int drainTo (final Object[] objects, final int offset, final int maxLength) {
+	BufferChecks.checkRange (objects, offset, maxLength);
+	int done = 0;
+	while (done < maxLength) {
+	    final long head = indices.get (HEAD);
+	    int count = 0;
+	    while (done + count < maxLength && count < capacity &&
+		   sequences.get ((int)(head + count) & mask) == head + count + 1) 
+	    {
+		count++;
+	    }
+	    if (count == 0) {
+		final long difference = sequences.get ((int)head & mask) - (head + 1);
+		if (difference < 0) {
+		    if (indices.get (TAIL) <= head) { return done; }
+		    Thread.yield ();
+		}
+	    } else if (indices.compareAndSet (HEAD, head, head + count)) {
+		final int slot = (int)head & mask;
+		RingCopy.copyOut (contents, capacity, slot, objects, offset + done, count);
+		RingCopy.clear (contents, slot, count);
+		for (int i=0; i < count; i++) {
+		    sequences.lazySet ((int)(head + i) & mask, head + i + capacity);
+		}
+		done = done + count;
+	    }
+	}
+	return done;
+    }
+
+    public String toString () {
+	return "MpmcBuffer { capacity=" + capacity + 
+	    ", head=" + indices.get (HEAD) + ", tail=" + indices.get (TAIL) + " }";
+    }
+
+}
@@ -0,0 +1,78 @@
+package ajeffrey.teaching.util.buffer;
+
+/**
+ * The common parts of the primitive buffers: a ring of slots in a
+ * primitive array, guarded by a monitor.  Subclasses read and write
+ * the slots themselves, since the array's element type differs, but
+ * bulk copies work on any array through RingCopy.
+ */
+abstract class PrimitiveBufferImpl implements Bounded {
+
+    protected final Object lock = new Object ();
+    protected final String name;
+    protected final int capacity;
+    protected final Object contents;
+    protected int first = 0;
+    protected int last = 0;
+    // Volatile, so size () can be read without the lock
+    protected volatile int size = 0;
+
+    protected PrimitiveBufferImpl (final String name, final int capacity, final Object contents) {
+	this.name = name;
+	this.capacity = capacity;
+	this.contents = contents;
+    }
+
+    public int capacity () { 
+	return capacity; 
+    }
+
+    public int size () { 
+	return size; 
+    }
+
+    // Only called with the lock held: the slot for the next put
+    protected int putSlot () {
+	if (size == capacity) { throw new BufferFullException (); }
+	final int slot = last;
+	last = (last + 1 == capacity) ? 0 : last + 1;
+	size = size + 1;
+	return slot;
+    }
+
+    // Only called with the lock held: the slot for the next get
+    protected int getSlot () {
+	if (size == 0) { throw new BufferEmptyException (); }
+	final int slot = first;
+	first = (first + 1 == capacity) ? 0 : first + 1;
+	size = size - 1;
+	return slot;
+    }
+
+    protected int putAll (final Object values, final int arrayLength, final int offset, final int length) {
+	BufferChecks.checkRange (arrayLength, offset, length);
+	synchronized (lock) {
+	    final int count = Math.min (length, capacity - size);
+	    RingCopy.copyIn (values, offset, contents, capacity, last, count);
+	    last = (last + count) % capacity;
+	    size = size + count;
+	    return count;
+	}
+    }
+
+    protected int drainTo (final Object values, final int arrayLength, final int offset, final int maxLength) {
+	BufferChecks.checkRange (arrayLength, offset, maxLength);
+	synchronized (lock) {
+	    final int count = Math.min (maxLength, size);
+	    RingCopy.copyOut (contents, capacity, first, values, offset, count);
+	    first = (first + count) % capacity;
+	    size = size - count;
+	    return count;
+	}
+    }
+
+    public String toString () {
+	return name + " { capacity=" + capacity + ", size=" + size + " }";
+    }
+
+}
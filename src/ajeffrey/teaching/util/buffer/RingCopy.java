@@ -0,0 +1,45 @@
+package ajeffrey.teaching.util.buffer;
+
+import java.util.Arrays;
+
+/**
+ * Copies between a ring of slots and an ordinary array, shared by
+ * the buffer implementations.  A run of slots may wrap round the end
+ * of the ring, so each copy is at most two calls to
+ * System.arraycopy: up to the end of the ring, then from its start.
+ * The ring may be an array of objects or of any primitive type, as
+ * long as the other array has the same element type.
+ */
+final class RingCopy {
+
+    // Copy count elements from array, starting at offset, into the
+    // ring, starting at slot
+    static void copyIn 
+	(final Object array, final int offset, 
+	 final Object ring, final int capacity, final int slot, final int count) 
+    {
+	final int firstChunk = Math.min (count, capacity - slot);
+	System.arraycopy (array, offset, ring, slot, firstChunk);
+	System.arraycopy (array, offset + firstChunk, ring, 0, count - firstChunk);
+    }
+
+    // Copy count elements from the ring, starting at slot, into
+    // array, starting at offset
+    static void copyOut 
+	(final Object ring, final int capacity, final int slot, 
+	 final Object array, final int offset, final int count) 
+    {
+	final int firstChunk = Math.min (count, capacity - slot);
+	System.arraycopy (ring, slot, array, offset, firstChunk);
+	System.arraycopy (ring, 0, array, offset + firstChunk, count - firstChunk);
+    }
+
+    // Clear count slots of a ring of objects, starting at slot, so the
+    // ring does not keep the objects alive
+    static void clear (final Object[] ring, final int slot, final int count) {
+	final int firstChunk = Math.min (count, ring.length - slot);
+	Arrays.fill (ring, slot, slot + firstChunk, null);
+	Arrays.fill (ring, 0, count - firstChunk, null);
+    }
+
+}
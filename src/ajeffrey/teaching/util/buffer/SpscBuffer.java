@@ -0,0 +1,144 @@
+package ajeffrey.teaching.util.buffer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free ring buffer for exactly one producer thread and
+ * one consumer thread.
+ * <p>The producer owns the tail index and the consumer owns the head
+ * index, so neither needs a compare-and-set: each publishes its index
+ * with a release store (<code>lazySet</code>) after touching the
+ * array, and reads the other's index with a volatile read.  The two
+ * indices are 128 bytes apart so they do not share a cache line.
+ * Each side also keeps a cached copy of the other's index, and only
+ * re-reads the real one when the cached copy says the buffer is full
+ * (or empty), so most operations touch no shared cache line at all
+ * except the array slot itself.</p>
+ * <p>The capacity is rounded up to a power of two, so the indices
+ * can be masked rather than taken modulo the capacity.</p>
+ * <p>It is up to the caller to make sure there is only ever one
+ * thread putting and one thread getting at a time.  Since
+ * <code>put</code> and <code>get</code> throw exceptions when the
+ * buffer is full or empty, the producer should check
+ * <code>size () &lt; capacity ()</code> first, and the consumer
+ * <code>size () &gt; 0</code>: with one producer and one consumer,
+ * these checks cannot be invalidated by the other side.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface SpscBuffer {
+
+    /**
+     * A factory for building single-producer single-consumer buffers.
+     * The capacity is rounded up to a power of two.
+     */
+    BufferFactory factory = new SpscBufferFactoryImpl ();
+
+}
+
+class SpscBufferFactoryImpl implements BufferFactory {
+
+    public Buffer build (final int capacity) { 
+	if (capacity <= 0 || capacity > (1 << 30)) { 
+	    throw new IllegalArgumentException ("capacity = " + capacity); 
+	}
+	int size = 1;
+	while (size < capacity) { size *= 2; }
+	return new SpscBufferImpl (size);
+    }
+
+}
+
+class SpscBufferImpl implements Buffer {
+
+    // Each index is PADDING longs (128 bytes) from the other, and from
+    // the ends of the array, so no two share a cache line, even with
+    // adjacent-line prefetch.
+    static final int PADDING = 16;
+    static final int HEAD = PADDING;
+    static final int TAIL = 2 * PADDING;
+
+    protected final int capacity;
+    protected final int mask;
+    protected final Object[] contents;
+    // The head (next slot to get) and tail (next slot to put), which
+    // only ever increase; the slot is the index masked by capacity-1.
+    protected final AtomicLongArray indices = new AtomicLongArray (3 * PADDING);
+    // Plain (unshared) copies: the producer's cached copy of the head,
+    // and the consumer's cached copy of the tail, padded the same way.
+    protected final long[] cached = new long[3 * PADDING];
+
+    SpscBufferImpl (final int capacity) {
+	this.capacity = capacity;
+	this.mask = capacity - 1;
+	this.contents = new Object[capacity];
+    }
+
+    public int capacity () { 
+	return capacity; 
+    }
+
+    public int size () { 
+	// Read the head first, so the size can never look negative
+	final long head = indices.get (HEAD);
+	return (int)(indices.get (TAIL) - head);
+    }
+
+    // Only called by the producer
+    public void put (final Object object) {
+	if (object == null) { throw new IllegalArgumentException (); }
+	final long tail = indices.get (TAIL);
+	if (tail - cached[HEAD] >= capacity) {
+	    cached[HEAD] = indices.get (HEAD);
+	    if (tail - cached[HEAD] >= capacity) { throw new BufferFullException (); }
+	}
+	contents[(int)tail & mask] = object;
+	// Release store: the consumer cannot see the new tail before the slot
+	indices.lazySet (TAIL, tail + 1);
+    }
+
+    // Only called by the consumer
+    public Object get () {
+	final long head = indices.get (HEAD);
+	if (head >= cached[TAIL]) {
+	    cached[TAIL] = indices.get (TAIL);
+	    if (head >= cached[TAIL]) { throw new BufferEmptyException (); }
+	}
+	final int slot = (int)head & mask;
+	final Object result = contents[slot];
+	contents[slot] = null;
+	// Release store: the producer cannot reuse the slot before we are done
+	indices.lazySet (HEAD, head + 1);
+	return result;
+    }
+
+    // Only called by the producer
+    public int putAll (final Object[] objects, final int offset, final int length) {
+	BufferChecks.checkNotNull (objects, offset, length);
+	final long tail = indices.get (TAIL);
+	if (tail - cached[HEAD] + length > capacity) { cached[HEAD] = indices.get (HEAD); }
+	final int count = (int)(Math.min (length, capacity - (tail - cached[HEAD])));
+	RingCopy.copyIn (objects, offset, contents, capacity, (int)tail & mask, count);
+	indices.lazySet (TAIL, tail + count);
+	return count;
+    }
+
+    // Only called by the consumer
+    public int drainTo (final Object[] objects, final int offset, final int maxLength) {
+	BufferChecks.checkRange (objects, offset, maxLength);
+	final long head = indices.get (HEAD);
+	if (head + maxLength > cached[TAIL]) { cached[TAIL] = indices.get (TAIL); }
+	final int count = (int)(Math.min (maxLength, cached[TAIL] - head));
+	final int slot = (int)head & mask;
+	RingCopy.copyOut (contents, capacity, slot, objects, offset, count);
+	RingCopy.clear (contents, slot, count);
+	indices.lazySet (HEAD, head + count);
+	return count;
+    }
+
+    public String toString () {
+	return "SpscBuffer { capacity=" + capacity + 
+	    ", head=" + indices.get (HEAD) + ", tail=" + indices.get (TAIL) + " }";
+    }
+
+}
@@ -41,7 +41,9 @@ class UnsafeBufferImpl implements Buffer {
 	this.size = 0;
     }
     
+    // Walks the whole array, so only runs when debugging is enabled
     protected void checkInvariants () {
+	if (!Debug.enabled) { return; }
 	Debug.out.println ("UnsafeBuffer.checkInvariants (): State = " + this);
 	Debug.out.assertion (size <= capacity);
 	Debug.out.assertion ((size % capacity) == ((capacity + last - first) % capacity));
@@ -63,50 +65,85 @@ class UnsafeBufferImpl implements Buffer {
     }
 
     public void put (final Object object) {
-	Debug.out.println ("UnsafeBuffer.put: Starting");
-	Debug.out.println ("UnsafeBuffer.put: Checking !full");
+	if (Debug.enabled) {
+	    Debug.out.println ("UnsafeBuffer.put: Starting");
+	    Debug.out.println ("UnsafeBuffer.put: Checking !full");
+	}
 	if (size == capacity) { throw new BufferFullException (); }
-	Debug.out.println ("UnsafeBuffer.put: Checking object != null");
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.put: Checking object != null"); }
 	if (object == null) { throw new IllegalArgumentException (); }
-	Debug.out.println ("UnsafeBuffer.put: Begin critical section.");
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.put: Begin critical section."); }
 	contents[last] = object;
-	Debug.out.println ("UnsafeBuffer.put: Set contents[" + last + "] = " + object);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.put: Set contents[" + last + "] = " + object); }
 	final int newLast = (last + 1) % capacity;
-	Debug.out.println ("UnsafeBuffer.put: Set newLast = " + newLast);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.put: Set newLast = " + newLast); }
 	last = newLast;
-	Debug.out.println ("UnsafeBuffer.put: Setting last = " + last);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.put: Setting last = " + last); }
 	final int newSize = size + 1;
-	Debug.out.println ("UnsafeBuffer.put: Set newSize = " + newSize);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.put: Set newSize = " + newSize); }
 	size = newSize;
-	Debug.out.println ("UnsafeBuffer.put: Setting size = " + size);
-	Debug.out.println ("UnsafeBuffer.put: End critical section.");
+	if (Debug.enabled) {
+	    Debug.out.println ("UnsafeBuffer.put: Setting size = " + size);
+	    Debug.out.println ("UnsafeBuffer.put: End critical section.");
+	}
 	checkInvariants ();
-	Debug.out.println ("UnsafeBuffer.put: Returning");
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.put: Returning"); }
     }
 
     public Object get () {
-	Debug.out.println ("UnsafeBuffer.get: Starting");
-	Debug.out.println ("UnsafeBuffer.get: Checking !empty");
+	if (Debug.enabled) {
+	    Debug.out.println ("UnsafeBuffer.get: Starting");
+	    Debug.out.println ("UnsafeBuffer.get: Checking !empty");
+	}
 	if (size == 0) { throw new BufferEmptyException (); }
-	Debug.out.println ("UnsafeBuffer.get: Begin critical section.");
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.get: Begin critical section."); }
 	final Object result = contents[first];
-	Debug.out.println ("UnsafeBuffer.get: Set result = " + result);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.get: Set result = " + result); }
 	contents[first] = null;
-	Debug.out.println ("UnsafeBuffer.get: Set contents[" + first + "] = null");
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.get: Set contents[" + first + "] = null"); }
 	final int newFirst = (first + 1) % capacity;
-	Debug.out.println ("UnsafeBuffer.get: Set newFirst = " + newFirst);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.get: Set newFirst = " + newFirst); }
 	first = newFirst;
-	Debug.out.println ("UnsafeBuffer.get: Set first = " + first);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.get: Set first = " + first); }
 	final int newSize = size - 1;
-	Debug.out.println ("UnsafeBuffer.get: Set newSize = " + newSize);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.get: Set newSize = " + newSize); }
 	size = size - 1;
-	Debug.out.println ("UnsafeBuffer.get: Set size = " + size);
-	Debug.out.println ("UnsafeBuffer.get: End critical section");
+	if (Debug.enabled) {
+	    Debug.out.println ("UnsafeBuffer.get: Set size = " + size);
+	    Debug.out.println ("UnsafeBuffer.get: End critical section");
+	}
 	checkInvariants ();
-	Debug.out.println ("UnsafeBuffer.get: Returning " + result);
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.get: Returning " + result); }
 	return result;
     }
 
+    public int putAll (final Object[] objects, final int offset, final int length) {
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.putAll: Starting"); }
+	BufferChecks.checkNotNull (objects, offset, length);
+	final int count = Math.min (length, capacity - size);
+	RingCopy.copyIn (objects, offset, contents, capacity, last, count);
+	last = (last + count) % capacity;
+	size = size + count;
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.putAll: Added " + count); }
+	checkInvariants ();
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.putAll: Returning"); }
+	return count;
+    }
+
+    public int drainTo (final Object[] objects, final int offset, final int maxLength) {
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.drainTo: Starting"); }
+	BufferChecks.checkRange (objects, offset, maxLength);
+	final int count = Math.min (maxLength, size);
+	RingCopy.copyOut (contents, capacity, first, objects, offset, count);
+	RingCopy.clear (contents, first, count);
+	first = (first + count) % capacity;
+	size = size - count;
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.drainTo: Removed " + count); }
+	checkInvariants ();
+	if (Debug.enabled) { Debug.out.println ("UnsafeBuffer.drainTo: Returning"); }
+	return count;
+    }
+
     public String toString () {
 	StringBuffer result = new StringBuffer 
 	    ("UnsafeBuffer { capacity=" + capacity + ", size=" + size + 
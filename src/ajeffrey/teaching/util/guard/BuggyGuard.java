@@ -1,6 +1,7 @@
 package ajeffrey.teaching.util.guard;
 
 import ajeffrey.teaching.debug.Debug;
+import ajeffrey.teaching.util.time.TimeoutException;
 
 /**
  * A buggy guard class.
@@ -33,51 +34,80 @@ class BuggyGuardImpl implements Guard {
 
     protected BuggyGuardImpl (final boolean init) {
 	this.value = init;
-	Debug.out.println ("BuggyGuardImpl: built");
+	if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl: built"); }
     }
 
     public void setValue (final boolean value) {
-	Debug.out.println ("BuggyGuardImpl.setValue: Starting");
-	Debug.out.println ("BuggyGuardImpl.setValue: Current state=" + this);
+	if (Debug.enabled) {
+	    Debug.out.println ("BuggyGuardImpl.setValue: Starting");
+	    Debug.out.println ("BuggyGuardImpl.setValue: Current state=" + this);
+	}
 	this.value = value;
 	if (value) {
-	    Debug.out.println ("BuggyGuardImpl.setValue: Grabbing the lock");
+	    if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.setValue: Grabbing the lock"); }
 	    synchronized (lock) { 
-		Debug.out.println ("BuggyGuardImpl.setValue: Grabbed the lock");
-		Debug.out.println ("BuggyGuardImpl.setValue: Calling notifyAll ()");
+		if (Debug.enabled) {
+		    Debug.out.println ("BuggyGuardImpl.setValue: Grabbed the lock");
+		    Debug.out.println ("BuggyGuardImpl.setValue: Calling notifyAll ()");
+		}
 		lock.notifyAll ();
 	    }
-	    Debug.out.println ("BuggyGuardImpl.setValue: Released the lock");
+	    if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.setValue: Released the lock"); }
+	}
+	if (Debug.enabled) {
+	    Debug.out.println ("BuggyGuardImpl.setValue: New state=" + this);
+	    Debug.out.println ("BuggyGuardImpl.setValue: Returning");
 	}
-	Debug.out.println ("BuggyGuardImpl.setValue: New state=" + this);
-	Debug.out.println ("BuggyGuardImpl.setValue: Returning");
     }
 
     public boolean getValue () {
-	Debug.out.println ("BuggyGuardImpl.getValue: Starting");
+	if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.getValue: Starting"); }
 	final boolean result = value;
-	Debug.out.println ("BuggyGuardImpl.getValue: Returning " + result);
+	if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.getValue: Returning " + result); }
 	return result;
     }
 
     public void waitForTrue () throws InterruptedException {
-	Debug.out.println ("BuggyGuardImpl.waitForTrue: Starting");
+	if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Starting"); }
 	if (!value) {
-	    Debug.out.println ("BuggyGuardImpl.waitForTrue: The value was false");
-	    Debug.out.println ("BuggyGuardImpl.waitForTrue: Grabbing the lock");
+	    if (Debug.enabled) {
+		Debug.out.println ("BuggyGuardImpl.waitForTrue: The value was false");
+		Debug.out.println ("BuggyGuardImpl.waitForTrue: Grabbing the lock");
+	    }
 	    synchronized (lock) {
-		Debug.out.println ("BuggyGuardImpl.waitForTrue: Grabbed the lock");
+		if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Grabbed the lock"); }
 		// The double-check if statement has been left out here
 		// which causes a bug!
-		Debug.out.println ("BuggyGuardImpl.waitForTrue: Waiting " + this);
+		if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Waiting " + this); }
 		lock.wait (); 
-		Debug.out.println ("BuggyGuardImpl.waitForTrue: Done waiting");
+		if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Done waiting"); }
 	    }
-	    Debug.out.println ("BuggyGuardImpl.waitForTrue: Released the lock");
+	    if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Released the lock"); }
 	} else {
-	    Debug.out.println ("BuggyGuardImpl.waitForTrue: The value was true");
+	    if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: The value was true"); }
+	}
+	if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.getValue: Starting"); }
+    }
+
+    public void waitForTrue (final long timeout) throws InterruptedException, TimeoutException {
+	if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Starting, timeout=" + timeout); }
+	if (!value) {
+	    final long endTime = System.nanoTime () + timeout * 1000000L;
+	    synchronized (lock) {
+		// The same double-check is left out here, so this can
+		// wait for the whole timeout even though the value is true
+		final long delay = endTime - System.nanoTime ();
+		if (delay > 0) {
+		    if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Waiting " + this); }
+		    lock.wait (delay / 1000000L, (int)(delay % 1000000L));
+		}
+		if (!value && endTime - System.nanoTime () <= 0) {
+		    if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Timed out"); }
+		    throw new TimeoutException ();
+		}
+	    }
 	}
-	Debug.out.println ("BuggyGuardImpl.getValue: Starting");
+	if (Debug.enabled) { Debug.out.println ("BuggyGuardImpl.waitForTrue: Returning"); }
     }
 
     public String toString () {
@@ -1,6 +1,7 @@
 package ajeffrey.teaching.util.guard;
 
 import ajeffrey.teaching.debug.Debug;
+import ajeffrey.teaching.util.time.TimeoutException;
 
 /**
  * A guard class.
@@ -45,6 +46,16 @@ public interface Guard {
      */
     void waitForTrue() throws InterruptedException;
 
+    /**
+     * Wait for the guard to become true, with a timeout.
+     * This method will block until the guard is set to be true,
+     * or the timeout expires.
+     * @param timeout the time in milliseconds to wait
+     * @exception TimeoutException thrown if the timeout expires
+     *   before the guard is set to be true
+     */
+    void waitForTrue(long timeout) throws InterruptedException, TimeoutException;
+
     /**
      * A factory for building guards.
      */
@@ -67,53 +78,84 @@ class GuardImpl implements Guard {
 
     protected GuardImpl (final boolean init) {
 	this.value = init;
-	Debug.out.println ("GuardImpl: built");
+	if (Debug.enabled) { Debug.out.println ("GuardImpl: built"); }
     }
 
     public void setValue (final boolean value) {
-	Debug.out.println ("GuardImpl.setValue: Starting");
-	Debug.out.println ("GuardImpl.setValue: Current state=" + this);
-	Debug.out.println ("GuardImpl.setValue: Grabbing the lock");
+	if (Debug.enabled) {
+	    Debug.out.println ("GuardImpl.setValue: Starting");
+	    Debug.out.println ("GuardImpl.setValue: Current state=" + this);
+	    Debug.out.println ("GuardImpl.setValue: Grabbing the lock");
+	}
         synchronized (lock) {
 	    this.value = value;
 	    if (value) {
-		Debug.out.println ("GuardImpl.setValue: Calling notifyAll ()");
+		if (Debug.enabled) { Debug.out.println ("GuardImpl.setValue: Calling notifyAll ()"); }
 		lock.notifyAll ();
 	    }
-	    Debug.out.println ("GuardImpl.setValue: Released the lock");
+	    if (Debug.enabled) { Debug.out.println ("GuardImpl.setValue: Released the lock"); }
+	}
+	if (Debug.enabled) {
+	    Debug.out.println ("GuardImpl.setValue: New state=" + this);
+	    Debug.out.println ("GuardImpl.setValue: Returning");
 	}
-	Debug.out.println ("GuardImpl.setValue: New state=" + this);
-	Debug.out.println ("GuardImpl.setValue: Returning");
     }
 
     public boolean getValue () {
-	Debug.out.println ("GuardImpl.getValue: Starting");
+	if (Debug.enabled) { Debug.out.println ("GuardImpl.getValue: Starting"); }
 	final boolean result = value;
-	Debug.out.println ("GuardImpl.getValue: Returning " + result);
+	if (Debug.enabled) { Debug.out.println ("GuardImpl.getValue: Returning " + result); }
 	return result;
     }
 
     public void waitForTrue () throws InterruptedException {
-	Debug.out.println ("GuardImpl.waitForTrue: Starting");
+	if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: Starting"); }
 	if (!value) {
-	    Debug.out.println ("GuardImpl.waitForTrue: The value was false");
-	    Debug.out.println ("GuardImpl.waitForTrue: Grabbing the lock");
+	    if (Debug.enabled) {
+		Debug.out.println ("GuardImpl.waitForTrue: The value was false");
+		Debug.out.println ("GuardImpl.waitForTrue: Grabbing the lock");
+	    }
 	    synchronized (lock) {
-		Debug.out.println ("GuardImpl.waitForTrue: Grabbed the lock");
+		if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: Grabbed the lock"); }
 		if (!value) { 
-		    Debug.out.println ("GuardImpl.waitForTrue: Still false");
-		    Debug.out.println ("GuardImpl.waitForTrue: Waiting " + this);
+		    if (Debug.enabled) {
+			Debug.out.println ("GuardImpl.waitForTrue: Still false");
+			Debug.out.println ("GuardImpl.waitForTrue: Waiting " + this);
+		    }
 		    lock.wait (); 
-		    Debug.out.println ("GuardImpl.waitForTrue: Done waiting");
+		    if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: Done waiting"); }
 		} else {
-		    Debug.out.println ("GuardImpl.waitForTrue: True again!");
+		    if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: True again!"); }
 		}
 	    }
-	    Debug.out.println ("GuardImpl.waitForTrue: Released the lock");
+	    if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: Released the lock"); }
 	} else {
-	    Debug.out.println ("GuardImpl.waitForTrue: The value was true");
+	    if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: The value was true"); }
+	}
+	if (Debug.enabled) { Debug.out.println ("GuardImpl.getValue: Starting"); }
+    }
+
+    public void waitForTrue (final long timeout) throws InterruptedException, TimeoutException {
+	if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: Starting, timeout=" + timeout); }
+	if (!value) {
+	    final long endTime = System.nanoTime () + timeout * 1000000L;
+	    synchronized (lock) {
+		if (!value) {
+		    final long delay = endTime - System.nanoTime ();
+		    if (delay > 0) {
+			if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: Waiting " + this); }
+			lock.wait (delay / 1000000L, (int)(delay % 1000000L));
+		    }
+		    // We cannot tell a timeout from a notification, so only
+		    // give up if the value is still false and time is up.
+		    if (!value && endTime - System.nanoTime () <= 0) {
+			if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: Timed out"); }
+			throw new TimeoutException ();
+		    }
+		}
+	    }
 	}
-	Debug.out.println ("GuardImpl.getValue: Starting");
+	if (Debug.enabled) { Debug.out.println ("GuardImpl.waitForTrue: Returning"); }
     }
 
     public String toString () {
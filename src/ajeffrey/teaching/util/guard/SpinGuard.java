@@ -0,0 +1,139 @@
+package ajeffrey.teaching.util.guard;
+
+import ajeffrey.teaching.debug.Debug;
+import ajeffrey.teaching.util.time.TimeoutException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A guard which spins briefly before blocking.
+ * The value is kept in a volatile field, so <code>getValue</code>
+ * and <code>setValue</code> never take a lock.  A thread calling
+ * <code>waitForTrue</code> first spins, re-reading the guard, and
+ * only blocks on a monitor if the guard is not set while it spins.
+ * Blocked threads register in a waiter count, and
+ * <code>setValue (true)</code> only touches the monitor when the
+ * count is non-zero.
+ * <p>The number of spins adapts: it grows each time spinning works,
+ * and shrinks each time a thread has to block anyway.  On a machine
+ * with only one processor, nothing can change the guard while we
+ * spin, so threads block straight away.</p>
+ * <p>Every <code>setValue (true)</code> also bumps a counter, and
+ * waiting threads watch the counter as well as the value, so they
+ * see transitory values just like the other guard implementations.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see Guard
+ */
+public interface SpinGuard {
+
+    /**
+     * A factory for building spinning guards.
+     */
+    GuardFactory factory = new SpinGuardFactoryImpl ();
+
+}
+
+class SpinGuardFactoryImpl implements GuardFactory {
+
+    public Guard build (final boolean init) {
+	return new SpinGuardImpl (init);
+    }
+
+}
+
+class SpinGuardImpl implements Guard {
+
+    static final int MIN_SPINS = 16;
+    static final int MAX_SPINS = 1 << 14;
+    static final boolean MULTIPROCESSOR = Runtime.getRuntime ().availableProcessors () > 1;
+
+    protected volatile boolean value;
+    // The number of times setValue (true) has been called
+    protected final AtomicLong sets = new AtomicLong (0);
+    protected final AtomicInteger waiters = new AtomicInteger (0);
+    protected final Object lock = new Object ();
+    // Only a hint, so races on it are harmless
+    protected int spins = MIN_SPINS;
+
+    protected SpinGuardImpl (final boolean init) {
+	this.value = init;
+	if (Debug.enabled) { Debug.out.println ("SpinGuardImpl: built"); }
+    }
+
+    public void setValue (final boolean value) {
+	this.value = value;
+	if (value) {
+	    sets.incrementAndGet ();
+	    // A waiter increments the count before re-checking the guard,
+	    // and we set the guard before checking the count, so at least
+	    // one of us sees the other and no wakeup is lost.
+	    if (waiters.get () > 0) {
+		if (Debug.enabled) { Debug.out.println ("SpinGuardImpl.setValue: Calling notifyAll ()"); }
+		synchronized (lock) { lock.notifyAll (); }
+	    }
+	}
+    }
+
+    public boolean getValue () {
+	return value;
+    }
+
+    // Has the guard been set since we read the counter?
+    protected boolean isSet (final long seen) {
+	return value || sets.get () != seen;
+    }
+
+    // Spin for a while, returning true if the guard was set
+    protected boolean spin (final long seen) {
+	if (!MULTIPROCESSOR) { return false; }
+	final int limit = spins;
+	for (int i=0; i < limit; i++) {
+	    if (isSet (seen)) {
+		if (limit < MAX_SPINS) { spins = limit * 2; }
+		return true;
+	    }
+	}
+	if (limit > MIN_SPINS) { spins = limit / 2; }
+	return false;
+    }
+
+    public void waitForTrue () throws InterruptedException {
+	final long seen = sets.get ();
+	if (value || spin (seen)) { return; }
+	if (Debug.enabled) { Debug.out.println ("SpinGuardImpl.waitForTrue: Blocking " + this); }
+	waiters.incrementAndGet ();
+	try {
+	    synchronized (lock) {
+		while (!isSet (seen)) { lock.wait (); }
+	    }
+	} finally {
+	    waiters.decrementAndGet ();
+	}
+    }
+
+    public void waitForTrue (final long timeout) throws InterruptedException, TimeoutException {
+	final long seen = sets.get ();
+	if (value || spin (seen)) { return; }
+	if (Debug.enabled) { Debug.out.println ("SpinGuardImpl.waitForTrue: Blocking " + this); }
+	final long endTime = System.nanoTime () + timeout * 1000000L;
+	waiters.incrementAndGet ();
+	try {
+	    synchronized (lock) {
+		while (!isSet (seen)) {
+		    final long delay = endTime - System.nanoTime ();
+		    if (delay <= 0) { throw new TimeoutException (); }
+		    lock.wait (delay / 1000000L, (int)(delay % 1000000L));
+		}
+	    }
+	} finally {
+	    waiters.decrementAndGet ();
+	}
+    }
+
+    public String toString () {
+	return "SpinGuard { value=" + value + ", waiters=" + waiters.get () + " }";
+    }
+
+}
@@ -0,0 +1,142 @@
+package ajeffrey.teaching.util.histogram;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds.
+ * <p>Like an HDR histogram, values are counted in buckets whose width
+ * grows with the value: each power of two is split into 32 equal
+ * buckets, so every recorded value is accurate to about 3%, and
+ * values up to 2<sup>40</sup> (about 18 minutes in nanoseconds) take
+ * a fixed array of about a thousand counters.  Larger values are
+ * counted as 2<sup>40</sup>.  Recording a value never allocates.</p>
+ * <p>A histogram is not thread-safe: it should only be recorded into
+ * by one thread, and only read once that thread has finished
+ * (for example after <code>Philosopher.join</code>).</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface Histogram {
+
+    /**
+     * Record a value.
+     * @param value the value to record
+     * @exception IllegalArgumentException thrown if value < 0
+     */
+    void record(long value);
+
+    /**
+     * Add all the values recorded by another histogram to this one.
+     * @param other the histogram to add
+     */
+    void add(Histogram other);
+
+    /**
+     * The number of values recorded.
+     * @return the number of values
+     */
+    long count();
+
+    /**
+     * The largest value recorded.
+     * @return the largest value, or 0 if the histogram is empty
+     */
+    long max();
+
+    /**
+     * The mean of the values recorded.
+     * @return the mean, or 0 if the histogram is empty
+     */
+    double mean();
+
+    /**
+     * The value at a percentile, such as the median (50), or
+     * the 99.9th percentile (99.9).
+     * This is the highest value which is equivalent (to within
+     * the histogram's accuracy) to the value at the percentile.
+     * @param percentile the percentile, from 0 to 100
+     * @return the value at the percentile, or 0 if the histogram is empty
+     */
+    long percentile(double percentile);
+
+    /**
+     * A factory for building histograms.
+     */
+    HistogramFactory factory = new HistogramFactoryImpl ();
+
+}
+
+class HistogramFactoryImpl implements HistogramFactory {
+
+    public Histogram build () { return new HistogramImpl (); }
+
+}
+
+class HistogramImpl implements Histogram {
+
+    // Values below 2^SUB_BITS get a bucket each.  Above that, each
+    // power of two [2^e, 2^(e+1)) is split into HALF buckets, by
+    // keeping the top SUB_BITS bits of the value.
+    static final int SUB_BITS = 6;
+    static final int HALF = 1 << (SUB_BITS - 1);
+    static final int MAX_BITS = 40;
+    static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    static final int BUCKETS = index (MAX_VALUE) + 1;
+
+    protected final long[] counts = new long[BUCKETS];
+    protected long count = 0;
+    protected long max = 0;
+    protected double total = 0;
+
+    static int index (final long value) {
+	if (value < (1L << SUB_BITS)) { return (int)value; }
+	final int shift = (63 - Long.numberOfLeadingZeros (value)) - SUB_BITS + 1;
+	return shift * HALF + (int)(value >>> shift);
+    }
+
+    static long highestValue (final int index) {
+	if (index < (1 << SUB_BITS)) { return index; }
+	final int shift = index / HALF - 1;
+	final long sub = index - shift * HALF;
+	return ((sub + 1) << shift) - 1;
+    }
+
+    public void record (final long value) {
+	if (value < 0) { throw new IllegalArgumentException (); }
+	final long clamped = Math.min (value, MAX_VALUE);
+	counts[index (clamped)]++;
+	count++;
+	total += clamped;
+	if (clamped > max) { max = clamped; }
+    }
+
+    public void add (final Histogram other) {
+	final HistogramImpl that = (HistogramImpl)other;
+	for (int i=0; i < BUCKETS; i++) { counts[i] += that.counts[i]; }
+	count += that.count;
+	total += that.total;
+	if (that.max > max) { max = that.max; }
+    }
+
+    public long count () { return count; }
+
+    public long max () { return max; }
+
+    public double mean () { return (count == 0) ? 0 : total / count; }
+
+    public long percentile (final double percentile) {
+	if (count == 0) { return 0; }
+	final long target = Math.max (1, (long)Math.ceil (count * percentile / 100.0));
+	long seen = 0;
+	for (int i=0; i < BUCKETS; i++) {
+	    seen += counts[i];
+	    if (seen >= target) { return Math.min (highestValue (i), max); }
+	}
+	return max;
+    }
+
+    public String toString () {
+	return "Histogram { count=" + count + ", mean=" + mean () +
+	    ", p50=" + percentile (50) + ", p99=" + percentile (99) +
+	    ", p999=" + percentile (99.9) + ", max=" + max + " }";
+    }
+
+}
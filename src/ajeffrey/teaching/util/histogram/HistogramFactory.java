@@ -0,0 +1,16 @@
+package ajeffrey.teaching.util.histogram;
+
+/**
+ * A factory for building histograms.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface HistogramFactory {
+
+    /**
+     * Build a new empty histogram.
+     * @return a new histogram
+     */
+    Histogram build();
+
+}
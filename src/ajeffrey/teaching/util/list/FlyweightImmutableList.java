@@ -40,31 +40,35 @@ class FlyweightFactory {
     protected static ImmutableList build 
 	(final Object hd, final ImmutableList tl, final WeakHashMap cache) 
     {
-	Debug.out.println ("FlyweightFactory.build: Starting");
-	Debug.out.println ("FlyweightFactory.build: Cache lookup for " + hd);
+	if (Debug.enabled) {
+	    Debug.out.println ("FlyweightFactory.build: Starting");
+	    Debug.out.println ("FlyweightFactory.build: Cache lookup for " + hd);
+	}
 	ImmutableList result = (ImmutableList)(cache.get (hd));
-	Debug.out.println ("FlyweightFactory.build: Cache found " + result);
+	if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Cache found " + result); }
 	if (result == null) {
-	    Debug.out.println ("FlyweightFactory.build: Cache miss");
-	    Debug.out.println ("FlyweightFactory.build: Grabbing lock");
+	    if (Debug.enabled) {
+		Debug.out.println ("FlyweightFactory.build: Cache miss");
+		Debug.out.println ("FlyweightFactory.build: Grabbing lock");
+	    }
 	    synchronized (cache) {
-		Debug.out.println ("FlyweightFactory.build: Grabbed lock");
+		if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Grabbed lock"); }
 		result = (ImmutableList)(cache.get (hd));
-		Debug.out.println ("FlyweightFactory.build: Cache found " + result);
+		if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Cache found " + result); }
 		if (result == null) {
-		    Debug.out.println ("FlyweightFactory.build: Still a cache miss");
+		    if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Still a cache miss"); }
 		    result = new FlyweightCons (hd, tl);
-		    Debug.out.println ("FlyweightFactory.build: Adding " + result);
+		    if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Adding " + result); }
 		    cache.put (hd, result);
 		} else {
-		    Debug.out.println ("FlyweightFactory.build: Now a cache hit");
+		    if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Now a cache hit"); }
 		}
-		Debug.out.println ("FlyweightFactory.build: Releasing lock");
+		if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Releasing lock"); }
 	    }
 	} else {
-	    Debug.out.println ("FlyweightFactory.build: Cache hit");
+	    if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Cache hit"); }
 	}
-	Debug.out.println ("FlyweightFactory.build: Returning " + result);
+	if (Debug.enabled) { Debug.out.println ("FlyweightFactory.build: Returning " + result); }
 	return result;
     }
 
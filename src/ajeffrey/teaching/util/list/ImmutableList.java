@@ -65,19 +65,19 @@ class ImmutableListEmpty implements ImmutableList {
     protected final Iterator it = new ImmutableListIterator (this);
 
     public ImmutableList cons (final Object element) {
-	Debug.out.println ("ImmutableListEmpty.cons: Starting");
+	if (Debug.enabled) { Debug.out.println ("ImmutableListEmpty.cons: Starting"); }
 	ImmutableList result = new ImmutableListCons (element, this);
-	Debug.out.println ("ImmutableListEmpty.cons: Returning " + result);
+	if (Debug.enabled) { Debug.out.println ("ImmutableListEmpty.cons: Returning " + result); }
 	return result;
     }
 
     public Object head () {
-	Debug.out.println ("ImmutableListEmpty.head: Oops");
+	if (Debug.enabled) { Debug.out.println ("ImmutableListEmpty.head: Oops"); }
 	throw new NoSuchElementException (); 
     }
 
     public ImmutableList tail () { 
-	Debug.out.println ("ImmutableListEmpty.tail: Oops");
+	if (Debug.enabled) { Debug.out.println ("ImmutableListEmpty.tail: Oops"); }
 	throw new NoSuchElementException (); 
     }
 
@@ -90,7 +90,7 @@ class ImmutableListEmpty implements ImmutableList {
     }
 
     public ImmutableList remove (Object element) { 
-	Debug.out.println ("ImmutableListEmpty.remove: Oops");
+	if (Debug.enabled) { Debug.out.println ("ImmutableListEmpty.remove: Oops"); }
 	throw new NoSuchElementException (); 
     }
 
@@ -110,13 +110,13 @@ class ImmutableListCons implements ImmutableList {
 	this.hd = hd;
 	this.tl = tl;
 	this.sz = tl.size () + 1;
-	Debug.out.println ("ImmutableListCons: Built");
+	if (Debug.enabled) { Debug.out.println ("ImmutableListCons: Built"); }
     }
 
     public ImmutableList cons (final Object element) {
-	Debug.out.println ("ImmutableListCons.cons: Starting");
+	if (Debug.enabled) { Debug.out.println ("ImmutableListCons.cons: Starting"); }
 	ImmutableList result = new ImmutableListCons (element, this);
-	Debug.out.println ("ImmutableListCons.cons: Returning " + result);
+	if (Debug.enabled) { Debug.out.println ("ImmutableListCons.cons: Returning " + result); }
 	return result;
     }
 
@@ -137,16 +137,18 @@ class ImmutableListCons implements ImmutableList {
     }
 
     public ImmutableList remove (Object element) { 
-	Debug.out.println ("ImmutableListCons.remove: Starting");
+	if (Debug.enabled) { Debug.out.println ("ImmutableListCons.remove: Starting"); }
 	if (hd.equals (element)) {
-	    Debug.out.println ("ImmutableListCons.remove: Returning " + tl);
+	    if (Debug.enabled) { Debug.out.println ("ImmutableListCons.remove: Returning " + tl); }
 	    return tl;
 	} else {
-	    Debug.out.println 
-		("ImmutableListCons.remove: Recursing " + tl + 
-		 ".remove (" + element +").cons (" + hd + ")");
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("ImmutableListCons.remove: Recursing " + tl +
+		     ".remove (" + element +").cons (" + hd + ")");
+	    }
 	    final ImmutableList result = tl.remove (element).cons (hd);
-	    Debug.out.println ("ImmutableListCons.remove: Returning " + result);
+	    if (Debug.enabled) { Debug.out.println ("ImmutableListCons.remove: Returning " + result); }
 	    return result;
 	}
     }
@@ -61,37 +61,53 @@ class MutableListImpl implements MutableList {
 
     public void add (final Object element) {
         synchronized (lock) {
-	    Debug.out.println 
-		("MutableListImpl.add: Starting...");
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("MutableListImpl.add: Starting...");
+	    }
 	    final ImmutableList oldContents = contents;
-	    Debug.out.println 
-		("MutableListImpl.add: Calling " + 
-		 oldContents + ".cons (" + element + ")");
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("MutableListImpl.add: Calling " +
+		     oldContents + ".cons (" + element + ")");
+	    }
 	    final ImmutableList newContents = oldContents.cons (element);
-	    Debug.out.println 
-		("MutableListImpl.add: setting contents = " +
-		 newContents);
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("MutableListImpl.add: setting contents = " +
+		     newContents);
+	    }
 	    contents = newContents;
-	    Debug.out.println 
-		("MutableListImpl.add: ...done.");
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("MutableListImpl.add: ...done.");
+	    }
 	}
     }
 
     public void remove (final Object element) {
 	synchronized (lock) {
-	    Debug.out.println 
-		("MutableListImpl.remove: Starting...");
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("MutableListImpl.remove: Starting...");
+	    }
 	    final ImmutableList oldContents = contents;
-	    Debug.out.println 
-		("MutableListImpl.remove: Calling " + oldContents + 
-		 ".remove (" + element + ")");
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("MutableListImpl.remove: Calling " + oldContents +
+		     ".remove (" + element + ")");
+	    }
 	    final ImmutableList newContents = oldContents.remove (element);
-	    Debug.out.println 
-		("MutableListImpl.remove: setting contents = " + 
-		 newContents);
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("MutableListImpl.remove: setting contents = " +
+		     newContents);
+	    }
 	    contents = newContents;
-	    Debug.out.println 
-		("MutableListImpl.remove: ...done.");
+	    if (Debug.enabled) {
+		Debug.out.println
+		    ("MutableListImpl.remove: ...done.");
+	    }
 	}
     }
 
@@ -1,14 +1,104 @@
 package ajeffrey.teaching.util.lock;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An interface for read/write locks.
+ * Any number of threads may hold the read lock at the same time,
+ * but a thread holding the write lock excludes all other readers
+ * and writers.
+ * <p>The lock built by <code>factory</code> prefers writers: once a
+ * writer is waiting, new readers block until it has had its turn,
+ * so a steady stream of readers cannot starve writers.  The lock
+ * is not reentrant: a thread which already holds the lock and tries
+ * to acquire it again would deadlock, so an
+ * <code>IllegalStateException</code> is thrown instead.  Releasing
+ * a lock which the thread does not hold also throws an
+ * <code>IllegalStateException</code>.</p>
+ * <p>For very short reads, a reader can avoid locking altogether by
+ * reading optimistically: it gets a stamp (which only reads shared
+ * memory), does its reads, then checks that no writer got in
+ * meanwhile, falling back to the read lock if one did:
+ * <pre>
+ *   long stamp = lock.tryOptimisticRead ();
+ *   int result = size;
+ *   if (!lock.validate (stamp)) {
+ *     lock.acquireReadLock ();
+ *     try { result = size; } finally { lock.releaseReadLock (); }
+ *   }
+ * </pre>
+ * The fields read optimistically must be <code>volatile</code> (or
+ * <code>final</code>), so that the reads cannot be reordered past
+ * <code>validate</code>, and the reader must not act on what it read
+ * until the stamp has been validated.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
 public interface ReadWriteLock {
 
+    /**
+     * Acquire the read lock, blocking while a writer holds or is
+     * waiting for the lock.
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
     void acquireReadLock() throws InterruptedException;
+
+    /**
+     * Acquire the write lock, blocking while any other thread holds
+     * the lock.
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
     void acquireWriteLock() throws InterruptedException;
+
+    /**
+     * Try to acquire the read lock, blocking for at most a given time.
+     * @param delay the time in milliseconds to wait
+     * @return true if the lock was acquired, false if the time ran out
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
     boolean attemptReadLock(long delay) throws InterruptedException;
+
+    /**
+     * Try to acquire the write lock, blocking for at most a given time.
+     * @param delay the time in milliseconds to wait
+     * @return true if the lock was acquired, false if the time ran out
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
     boolean attemptWriteLock(long delay) throws InterruptedException;
+
+    /**
+     * Release the read lock.
+     */
     void releaseReadLock();
+
+    /**
+     * Release the write lock.
+     */
     void releaseWriteLock();
 
+    /**
+     * Start an optimistic read, without acquiring the lock.
+     * @return a stamp to pass to <code>validate</code>, or 0 if a
+     *   writer currently holds the lock
+     */
+    long tryOptimisticRead();
+
+    /**
+     * Check whether an optimistic read was consistent: that no writer
+     * has acquired the lock since the stamp was issued.
+     * @param stamp a stamp from <code>tryOptimisticRead</code>
+     * @return true if the stamp is non-zero and no writer has
+     *   acquired the lock since it was issued
+     */
+    boolean validate(long stamp);
+
+    /**
+     * A factory for building read/write locks.
+     */
     ReadWriteLockFactory factory = new ReadWriteLockFactoryImpl ();
 
 }
@@ -21,20 +111,135 @@ class ReadWriteLockFactoryImpl implements ReadWriteLockFactory {
 
 class ReadWriteLockImpl implements ReadWriteLock {
 
-    public void acquireReadLock () throws InterruptedException {
+    protected final Object lock = new Object ();
+    protected int readers = 0;
+    protected int waitingWriters = 0;
+    protected Thread writer = null;
+    // Odd while a writer holds the lock, and bumped whenever a writer
+    // acquires or releases it.  Starts at 2 so 0 is never a stamp.
+    protected volatile long version = 2;
+    // Which threads hold the read lock, for spotting reentrancy
+    protected final ThreadLocal reading = new ThreadLocal ();
+
+    protected void checkNotHeld () {
+	if (reading.get () != null || writer == Thread.currentThread ()) {
+	    throw new IllegalStateException ("ReadWriteLock is not reentrant");
+	}
     }
-    public void acquireWriteLock () throws InterruptedException {
+
+    protected boolean canRead () {
+	return writer == null && waitingWriters == 0;
     }
 
-    public boolean attemptReadLock (long delay) throws InterruptedException {
+    protected boolean canWrite () {
+	return writer == null && readers == 0;
+    }
+
+    // Wait until the deadline, returning false if it has passed.
+    // A deadline of Long.MAX_VALUE means wait forever.
+    protected boolean await (final long endTime) throws InterruptedException {
+	if (endTime == Long.MAX_VALUE) {
+	    lock.wait ();
+	    return true;
+	}
+	final long delay = endTime - System.nanoTime ();
+	if (delay <= 0) { return false; }
+	lock.wait (delay / 1000000L, (int)(delay % 1000000L));
 	return true;
     }
-    public boolean attemptWriteLock (long delay) throws InterruptedException {
+
+    protected boolean readLock (final long endTime) throws InterruptedException {
+	checkNotHeld ();
+	synchronized (lock) {
+	    while (!canRead ()) {
+		if (!await (endTime)) { return false; }
+	    }
+	    readers++;
+	}
+	reading.set (Boolean.TRUE);
 	return true;
     }
+
+    protected boolean writeLock (final long endTime) throws InterruptedException {
+	checkNotHeld ();
+	synchronized (lock) {
+	    waitingWriters++;
+	    try {
+		while (!canWrite ()) {
+		    if (!await (endTime)) { return false; }
+		}
+	    } finally {
+		waitingWriters--;
+		// If we gave up, readers we were holding back can go
+		if (waitingWriters == 0 && writer == null) { lock.notifyAll (); }
+	    }
+	    writer = Thread.currentThread ();
+	    version++;
+	}
+	return true;
+    }
+
+    // The deadline for a delay in milliseconds.  A delay too long to
+    // add to the time now saturates to Long.MAX_VALUE, which await
+    // treats as waiting forever.
+    protected static long deadline (final long delay) {
+	final long now = System.nanoTime ();
+	if (delay <= 0) { return now; }
+	// toNanos saturates rather than overflowing
+	final long nanos = TimeUnit.MILLISECONDS.toNanos (delay);
+	if (now > 0 && nanos >= Long.MAX_VALUE - now) { return Long.MAX_VALUE; }
+	return now + nanos;
+    }
+
+    public void acquireReadLock () throws InterruptedException {
+	readLock (Long.MAX_VALUE);
+    }
+
+    public void acquireWriteLock () throws InterruptedException {
+	writeLock (Long.MAX_VALUE);
+    }
+
+    public boolean attemptReadLock (final long delay) throws InterruptedException {
+	return readLock (deadline (delay));
+    }
+
+    public boolean attemptWriteLock (final long delay) throws InterruptedException {
+	return writeLock (deadline (delay));
+    }
+
     public void releaseReadLock () {
+	if (reading.get () == null) { throw new IllegalStateException (); }
+	reading.remove ();
+	synchronized (lock) {
+	    readers--;
+	    if (readers == 0) { lock.notifyAll (); }
+	}
     }
+
     public void releaseWriteLock () {
+	synchronized (lock) {
+	    if (writer != Thread.currentThread ()) { throw new IllegalStateException (); }
+	    version++;
+	    writer = null;
+	    lock.notifyAll ();
+	}
+    }
+
+    public long tryOptimisticRead () {
+	final long stamp = version;
+	return ((stamp & 1) == 0) ? stamp : 0;
+    }
+
+    public boolean validate (final long stamp) {
+	return stamp != 0 && version == stamp;
+    }
+
+    public String toString () {
+	synchronized (lock) {
+	    return "ReadWriteLock { readers=" + readers + 
+		", writer=" + writer + 
+		", waitingWriters=" + waitingWriters + " }";
+	}
     }
 
 }
@@ -0,0 +1,229 @@
+package ajeffrey.teaching.util.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A read/write lock whose readers do not share a counter.
+ * <p>A lock which counts its readers in one field makes every
+ * <code>acquireReadLock</code> and <code>releaseReadLock</code>
+ * write to the same cache line, which bounces between cores even
+ * though the readers never exclude each other.  This lock spreads
+ * the reader count over a number of stripes (twice the number of
+ * processors, each padded onto its own cache line), and each thread
+ * counts itself in the stripe picked by hashing its id.  Uncontended
+ * readers only touch their own stripe, and a slot of their own which
+ * records the stripe and whether they hold the lock, so read locking
+ * scales with the number of cores.  A writer, which should be rare, announces
+ * itself and then waits for every stripe to drain.</p>
+ * <p>Like <code>ReadWriteLock.factory</code>, the lock prefers writers
+ * and is not reentrant.  A thread re-acquiring either lock, or
+ * releasing a lock it does not hold, gets an
+ * <code>IllegalStateException</code>.  Optimistic reads are supported
+ * as described in <code>ReadWriteLock</code>.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface StripedReadWriteLock {
+
+    /**
+     * A factory for building striped read/write locks.
+     */
+    ReadWriteLockFactory factory = new StripedReadWriteLockFactoryImpl ();
+
+}
+
+class StripedReadWriteLockFactoryImpl implements ReadWriteLockFactory {
+
+    public ReadWriteLock build () { return new StripedReadWriteLockImpl (); }
+
+}
+
+/**
+ * A thread's slot in a striped lock, built the first time the thread
+ * reads and then reused, so acquiring and releasing the read lock
+ * never adds or removes a thread-local.
+ */
+class StripedReader {
+
+    final int stripe;
+    boolean holding = false;
+
+    StripedReader (final int stripe) {
+	this.stripe = stripe;
+    }
+
+}
+
+class StripedReadWriteLockImpl implements ReadWriteLock {
+
+    // Each stripe is PADDING longs apart (128 bytes), so no two
+    // stripes share a cache line, even with adjacent-line prefetch.
+    static final int PADDING = 16;
+
+    protected final int mask;
+    protected final AtomicLongArray readers;
+    protected final Object lock = new Object ();
+    protected volatile Thread writer = null;
+    // Odd while a writer holds the lock: see ReadWriteLockImpl
+    protected volatile long version = 2;
+    // Each thread's stripe, and whether it holds the read lock, for
+    // spotting reentrancy and releases without a matching acquire
+    protected final ThreadLocal reading = new ThreadLocal () {
+	    protected Object initialValue () { return new StripedReader (stripe ()); }
+	};
+
+    protected StripedReadWriteLockImpl () {
+	int stripes = 1;
+	while (stripes < 2 * Runtime.getRuntime ().availableProcessors ()) { stripes *= 2; }
+	this.mask = stripes - 1;
+	// Leave a padding stripe at each end, away from other objects
+	this.readers = new AtomicLongArray ((stripes + 2) * PADDING);
+    }
+
+    protected int stripe () {
+	final long id = Thread.currentThread ().getId ();
+	return (((int)((id * 0x9E3779B97F4A7C15L) >>> 32) & mask) + 1) * PADDING;
+    }
+
+    protected void checkNotHeld (final StripedReader reader) {
+	if (reader.holding || writer == Thread.currentThread ()) {
+	    throw new IllegalStateException ("ReadWriteLock is not reentrant");
+	}
+    }
+
+    protected boolean noReaders () {
+	for (int i=0; i <= mask; i++) {
+	    if (readers.get ((i + 1) * PADDING) != 0) { return false; }
+	}
+	return true;
+    }
+
+    // Wait on the lock until the deadline, returning false if it has
+    // passed.  A deadline of Long.MAX_VALUE means wait forever.
+    protected boolean await (final long endTime) throws InterruptedException {
+	if (endTime == Long.MAX_VALUE) {
+	    lock.wait ();
+	    return true;
+	}
+	final long delay = endTime - System.nanoTime ();
+	if (delay <= 0) { return false; }
+	lock.wait (delay / 1000000L, (int)(delay % 1000000L));
+	return true;
+    }
+
+    protected boolean readLock (final long endTime) throws InterruptedException {
+	final StripedReader reader = (StripedReader)(reading.get ());
+	checkNotHeld (reader);
+	final int stripe = reader.stripe;
+	while (true) {
+	    // We count ourselves in before checking for a writer, and the
+	    // writer announces itself before checking the counts, so
+	    // at least one of us sees the other.
+	    readers.incrementAndGet (stripe);
+	    if (writer == null) {
+		reader.holding = true;
+		return true;
+	    }
+	    readers.decrementAndGet (stripe);
+	    synchronized (lock) {
+		// The writer may be waiting for us to back off
+		lock.notifyAll ();
+		while (writer != null) {
+		    if (!await (endTime)) { return false; }
+		}
+	    }
+	}
+    }
+
+    protected boolean writeLock (final long endTime) throws InterruptedException {
+	checkNotHeld ((StripedReader)(reading.get ()));
+	synchronized (lock) {
+	    while (writer != null) {
+		if (!await (endTime)) { return false; }
+	    }
+	    writer = Thread.currentThread ();
+	    boolean success = false;
+	    try {
+		while (!noReaders ()) {
+		    if (!await (endTime)) { return false; }
+		}
+		version++;
+		success = true;
+	    } finally {
+		// If we timed out or were interrupted, we must not leave
+		// the lock marked as write-held, and the readers we were
+		// holding back can go
+		if (!success) {
+		    writer = null;
+		    lock.notifyAll ();
+		}
+	    }
+	}
+	return true;
+    }
+
+    // The deadline for a delay in milliseconds.  A delay too long to
+    // add to the time now saturates to Long.MAX_VALUE, which await
+    // treats as waiting forever.
+    protected static long deadline (final long delay) {
+	final long now = System.nanoTime ();
+	if (delay <= 0) { return now; }
+	// toNanos saturates rather than overflowing
+	final long nanos = TimeUnit.MILLISECONDS.toNanos (delay);
+	if (now > 0 && nanos >= Long.MAX_VALUE - now) { return Long.MAX_VALUE; }
+	return now + nanos;
+    }
+
+    public void acquireReadLock () throws InterruptedException {
+	readLock (Long.MAX_VALUE);
+    }
+
+    public void acquireWriteLock () throws InterruptedException {
+	writeLock (Long.MAX_VALUE);
+    }
+
+    public boolean attemptReadLock (final long delay) throws InterruptedException {
+	return readLock (deadline (delay));
+    }
+
+    public boolean attemptWriteLock (final long delay) throws InterruptedException {
+	return writeLock (deadline (delay));
+    }
+
+    public void releaseReadLock () {
+	final StripedReader reader = (StripedReader)(reading.get ());
+	if (!reader.holding) { throw new IllegalStateException (); }
+	reader.holding = false;
+	readers.decrementAndGet (reader.stripe);
+	if (writer != null) {
+	    synchronized (lock) { lock.notifyAll (); }
+	}
+    }
+
+    public void releaseWriteLock () {
+	synchronized (lock) {
+	    if (writer != Thread.currentThread ()) { throw new IllegalStateException (); }
+	    version++;
+	    writer = null;
+	    lock.notifyAll ();
+	}
+    }
+
+    public long tryOptimisticRead () {
+	final long stamp = version;
+	return ((stamp & 1) == 0) ? stamp : 0;
+    }
+
+    public boolean validate (final long stamp) {
+	return stamp != 0 && version == stamp;
+    }
+
+    public String toString () {
+	long count = 0;
+	for (int i=0; i <= mask; i++) { count += readers.get ((i + 1) * PADDING); }
+	return "StripedReadWriteLock { stripes=" + (mask + 1) + 
+	    ", readers=" + count + ", writer=" + writer + " }";
+    }
+
+}
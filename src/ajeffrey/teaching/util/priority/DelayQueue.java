@@ -0,0 +1,204 @@
+package ajeffrey.teaching.util.priority;
+
+import ajeffrey.teaching.util.time.TimeoutException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A queue of entries which only become available after a delay,
+ * for example tasks waiting to be run by a timer.
+ * Each entry has a deadline, and get () blocks until the entry
+ * with the earliest deadline is due.
+ * <p>Consumers use the leader/follower pattern: at most one waiting
+ * thread (the leader) sleeps until the earliest deadline, and every
+ * other consumer waits without a timeout until it is woken, so an
+ * idle queue does not keep waking threads up.  Deadlines are measured
+ * with <code>System.nanoTime</code>, so they are not affected by
+ * changes to the wall clock.  Delays are capped at about 73 years,
+ * so that however large a delay is, it never wraps round to become
+ * earlier than the other entries.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface DelayQueue {
+
+    /**
+     * Add a new entry, which becomes available after a delay.
+     * @param delay the time in milliseconds until the entry is due
+     * @param entry the entry to add
+     */
+    void add(long delay, Object entry);
+
+    /**
+     * Add a new entry, which becomes available at a deadline.
+     * @param deadline the time the entry is due, as measured by
+     *   <code>System.nanoTime</code>
+     * @param entry the entry to add
+     */
+    void addAt(long deadline, Object entry);
+
+    /**
+     * Get the entry with the earliest deadline out of the queue,
+     * once its deadline has passed.
+     * Blocks if the queue is empty, or no entry is due yet.
+     * @return the entry with the earliest deadline
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    Object get() throws InterruptedException;
+
+    /**
+     * Get the entry with the earliest deadline out of the queue,
+     * once its deadline has passed.
+     * Blocks if the queue is empty, or no entry is due yet, but times out.
+     * @param timeout the time in milliseconds to wait
+     * @return the entry with the earliest deadline
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    Object get(long timeout) throws InterruptedException, TimeoutException;
+
+    /**
+     * The number of entries in the queue, whether or not they are due.
+     * @return the number of entries in the queue
+     */
+    int size();
+
+    /**
+     * A factory for building delay queues.
+     */
+    DelayQueueFactory factory = new DelayQueueFactoryImpl ();
+
+}
+
+class DelayQueueFactoryImpl implements DelayQueueFactory {
+
+    public DelayQueue build () { return new DelayQueueImpl (); }
+
+}
+
+class DelayQueueImpl implements DelayQueue {
+
+    // The longest delay, in nanoseconds.  The heap holds deadlines
+    // measured from when the queue was built, so capping the delay
+    // keeps every deadline far from overflowing.
+    static final long MAX_DELAY = Long.MAX_VALUE >>> 2;
+
+    protected final long origin = System.nanoTime ();
+    protected final ReentrantLock lock = new ReentrantLock ();
+    // Signalled when a new entry becomes the earliest, or the leader
+    // steps down, so that some thread takes over as leader
+    protected final Condition available = lock.newCondition ();
+    protected final LongHeap heap = new LongHeap ();
+    // The thread doing a timed wait for the earliest deadline, if any
+    protected Thread leader = null;
+
+    // The time now, measured from when the queue was built
+    protected long now () {
+	return System.nanoTime () - origin;
+    }
+
+    public void add (final long delay, final Object entry) {
+	// toNanos saturates rather than overflowing
+	addIn (TimeUnit.MILLISECONDS.toNanos (delay), entry);
+    }
+
+    public void addAt (final long deadline, final Object entry) {
+	// The difference of two nanoTime readings is safe from wrapping
+	addIn (deadline - System.nanoTime (), entry);
+    }
+
+    protected void addIn (final long delay, final Object entry) {
+	if (entry == null) { throw new IllegalArgumentException (); }
+	final long deadline = now () + Math.max (-MAX_DELAY, Math.min (delay, MAX_DELAY));
+	lock.lock ();
+	try {
+	    heap.add (deadline, entry);
+	    // If the new entry is now the earliest, the leader is waiting
+	    // for the wrong deadline, so a new leader needs to take over
+	    if (heap.first () == entry) {
+		leader = null;
+		available.signal ();
+	    }
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public Object get () throws InterruptedException {
+	lock.lockInterruptibly ();
+	try {
+	    while (true) {
+		if (heap.size () == 0) {
+		    available.await ();
+		} else {
+		    final long delay = heap.firstPriority () - now ();
+		    if (delay <= 0) { return heap.removeFirst (); }
+		    if (leader != null) {
+			available.await ();
+		    } else {
+			final Thread current = Thread.currentThread ();
+			leader = current;
+			try {
+			    available.awaitNanos (delay);
+			} finally {
+			    if (leader == current) { leader = null; }
+			}
+		    }
+		}
+	    }
+	} finally {
+	    // Hand over leadership if there is anything left to wait for
+	    if (leader == null && heap.size () > 0) { available.signal (); }
+	    lock.unlock ();
+	}
+    }
+
+    public Object get (final long timeout) throws InterruptedException, TimeoutException {
+	lock.lockInterruptibly ();
+	try {
+	    long remaining = TimeUnit.MILLISECONDS.toNanos (timeout);
+	    while (true) {
+		if (heap.size () == 0) {
+		    if (remaining <= 0) { throw new TimeoutException (); }
+		    remaining = available.awaitNanos (remaining);
+		} else {
+		    final long delay = heap.firstPriority () - now ();
+		    if (delay <= 0) { return heap.removeFirst (); }
+		    if (remaining <= 0) { throw new TimeoutException (); }
+		    if (remaining < delay || leader != null) {
+			remaining = available.awaitNanos (remaining);
+		    } else {
+			final Thread current = Thread.currentThread ();
+			leader = current;
+			try {
+			    final long slept = delay - available.awaitNanos (delay);
+			    remaining = remaining - slept;
+			} finally {
+			    if (leader == current) { leader = null; }
+			}
+		    }
+		}
+	    }
+	} finally {
+	    if (leader == null && heap.size () > 0) { available.signal (); }
+	    lock.unlock ();
+	}
+    }
+
+    public int size () {
+	return heap.size ();
+    }
+
+    public String toString () {
+	lock.lock ();
+	try {
+	    return "DelayQueue { leader=" + leader + ", " + heap + " }";
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+}
@@ -0,0 +1,16 @@
+package ajeffrey.teaching.util.priority;
+
+/**
+ * A factory for building delay queues.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface DelayQueueFactory {
+
+    /**
+     * Build a new, empty, delay queue.
+     * @return a new delay queue
+     */
+    DelayQueue build();
+
+}
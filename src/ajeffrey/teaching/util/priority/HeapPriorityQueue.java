@@ -0,0 +1,224 @@
+package ajeffrey.teaching.util.priority;
+
+import ajeffrey.teaching.util.time.TimeoutException;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An implementation of priority queues as a binary heap.
+ * The entries are kept in an array, where the children of entry i
+ * are entries 2i+1 and 2i+2, and every entry has a priority at least
+ * as high as its children.  Adding and getting entries take
+ * O(log n) time, without recursion, and the array only grows
+ * (by doubling) when it is full, so there is no allocation per entry.
+ * Like the pessimistic queue, all operations hold one lock, and
+ * <code>get</code> blocks on a condition queue while the queue is
+ * empty, with each add waking exactly one blocked consumer.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface HeapPriorityQueue {
+
+    /**
+     * A factory for building heap priority queues.
+     */
+    PriorityQueueFactory factory = new HeapPQFactory ();
+
+}
+
+class HeapPQFactory implements PriorityQueueFactory {
+
+    public PriorityQueue build () { return new HeapPQ (); }
+
+}
+
+class HeapPQ implements PriorityQueue {
+
+    static final int INITIAL_CAPACITY = 16;
+
+    protected final ReentrantLock lock = new ReentrantLock ();
+    protected final Condition notEmpty = lock.newCondition ();
+    protected Comparable[] heap = new Comparable[INITIAL_CAPACITY];
+    // Volatile, so size () can be read without the lock
+    protected volatile int size = 0;
+
+    protected void siftUp (int index, final Comparable element) {
+	while (index > 0) {
+	    final int parent = (index - 1) >>> 1;
+	    if (element.compareTo (heap[parent]) >= 0) { break; }
+	    heap[index] = heap[parent];
+	    index = parent;
+	}
+	heap[index] = element;
+    }
+
+    protected void siftDown (int index, final Comparable element, final int size) {
+	final int half = size >>> 1;
+	while (index < half) {
+	    int child = 2 * index + 1;
+	    final int right = child + 1;
+	    if (right < size && heap[right].compareTo (heap[child]) < 0) { child = right; }
+	    if (element.compareTo (heap[child]) <= 0) { break; }
+	    heap[index] = heap[child];
+	    index = child;
+	}
+	heap[index] = element;
+    }
+
+    // Only called with the lock held
+    protected void ensureCapacity (final int capacity) {
+	if (capacity > heap.length) {
+	    int length = heap.length;
+	    while (length < capacity) { length = length * 2; }
+	    final Comparable[] newHeap = new Comparable[length];
+	    System.arraycopy (heap, 0, newHeap, 0, size);
+	    heap = newHeap;
+	}
+    }
+
+    // Only called with the lock held
+    protected int drain (final Collection sink, final int maxEntries) {
+	int count = 0;
+	while (count < maxEntries && size > 0) {
+	    sink.add (removeFirst ());
+	    count++;
+	}
+	// If we left entries behind, make sure another consumer hears about them
+	if (size > 0) { notEmpty.signal (); }
+	return count;
+    }
+
+    // Only called with the lock held, and when size > 0
+    protected Comparable removeFirst () {
+	final Comparable result = heap[0];
+	final int newSize = size - 1;
+	final Comparable last = heap[newSize];
+	heap[newSize] = null;
+	if (newSize > 0) { siftDown (0, last, newSize); }
+	size = newSize;
+	return result;
+    }
+
+    public void add (final Comparable element) {
+	if (element == null) { throw new IllegalArgumentException (); }
+	lock.lock ();
+	try {
+	    ensureCapacity (size + 1);
+	    siftUp (size, element);
+	    size = size + 1;
+	    // One new entry, so wake one consumer rather than all of them
+	    notEmpty.signal ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public void addAll (final Comparable[] entries) {
+	for (int i=0; i < entries.length; i++) {
+	    if (entries[i] == null) { throw new IllegalArgumentException (); }
+	}
+	lock.lock ();
+	try {
+	    ensureCapacity (size + entries.length);
+	    if (entries.length > size) {
+		// Adding more entries than there already are, so it is
+		// cheaper to append them all and rebuild the heap in O(n)
+		System.arraycopy (entries, 0, heap, size, entries.length);
+		final int newSize = size + entries.length;
+		for (int i = (newSize >>> 1) - 1; i >= 0; i--) { siftDown (i, heap[i], newSize); }
+		size = newSize;
+	    } else {
+		for (int i=0; i < entries.length; i++) {
+		    siftUp (size, entries[i]);
+		    size = size + 1;
+		}
+	    }
+	    for (int i=0; i < entries.length; i++) { notEmpty.signal (); }
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int drainTo (final Collection sink, final int maxEntries) {
+	lock.lock ();
+	try {
+	    return drain (sink, maxEntries);
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int getAll (final Collection sink, final int maxEntries) throws InterruptedException {
+	if (maxEntries <= 0) { return 0; }
+	lock.lockInterruptibly ();
+	try {
+	    while (size == 0) { notEmpty.await (); }
+	    return drain (sink, maxEntries);
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int getAll (final Collection sink, final int maxEntries, final long timeout) 
+	throws InterruptedException, TimeoutException 
+    {
+	if (maxEntries <= 0) { return 0; }
+	lock.lockInterruptibly ();
+	try {
+	    long delay = TimeUnit.MILLISECONDS.toNanos (timeout);
+	    while (size == 0) {
+		if (delay <= 0) { throw new TimeoutException (); }
+		delay = notEmpty.awaitNanos (delay);
+	    }
+	    return drain (sink, maxEntries);
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public Comparable get () throws InterruptedException {
+	lock.lockInterruptibly ();
+	try {
+	    while (size == 0) { notEmpty.await (); }
+	    return removeFirst ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public Comparable get (final long timeout) throws InterruptedException, TimeoutException {
+	lock.lockInterruptibly ();
+	try {
+	    long delay = TimeUnit.MILLISECONDS.toNanos (timeout);
+	    while (size == 0) {
+		if (delay <= 0) { throw new TimeoutException (); }
+		delay = notEmpty.awaitNanos (delay);
+	    }
+	    return removeFirst ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int size () {
+	return size;
+    }
+
+    public String toString () {
+	lock.lock ();
+	try {
+	    final StringBuffer result = new StringBuffer ("HeapPQ { size=" + size);
+	    for (int i=0; i < size; i++) {
+		result.append (", heap[" + i + "]=" + heap[i]);
+	    }
+	    result.append (" }");
+	    return result.toString ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+}
@@ -0,0 +1,94 @@
+package ajeffrey.teaching.util.priority;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A binary heap of entries with long priorities, lowest first.
+ * This is not thread-safe: it is used by both LongHeapPQ and
+ * DelayQueue, which do their own locking.
+ */
+class LongHeap {
+
+    static final int INITIAL_CAPACITY = 16;
+
+    protected long[] priorities = new long[INITIAL_CAPACITY];
+    protected Object[] entries = new Object[INITIAL_CAPACITY];
+    // Volatile, so the queues can read the size without the lock
+    protected volatile int size = 0;
+
+    protected void siftUp (int index, final long priority, final Object entry) {
+	while (index > 0) {
+	    final int parent = (index - 1) >>> 1;
+	    if (priority >= priorities[parent]) { break; }
+	    priorities[index] = priorities[parent];
+	    entries[index] = entries[parent];
+	    index = parent;
+	}
+	priorities[index] = priority;
+	entries[index] = entry;
+    }
+
+    protected void siftDown (int index, final long priority, final Object entry, final int size) {
+	final int half = size >>> 1;
+	while (index < half) {
+	    int child = 2 * index + 1;
+	    final int right = child + 1;
+	    if (right < size && priorities[right] < priorities[child]) { child = right; }
+	    if (priority <= priorities[child]) { break; }
+	    priorities[index] = priorities[child];
+	    entries[index] = entries[child];
+	    index = child;
+	}
+	priorities[index] = priority;
+	entries[index] = entry;
+    }
+
+    void add (final long priority, final Object entry) {
+	if (size == priorities.length) {
+	    final long[] newPriorities = new long[size * 2];
+	    final Object[] newEntries = new Object[size * 2];
+	    System.arraycopy (priorities, 0, newPriorities, 0, size);
+	    System.arraycopy (entries, 0, newEntries, 0, size);
+	    priorities = newPriorities;
+	    entries = newEntries;
+	}
+	siftUp (size, priority, entry);
+	size = size + 1;
+    }
+
+    long firstPriority () {
+	if (size == 0) { throw new NoSuchElementException (); }
+	return priorities[0];
+    }
+
+    Object first () {
+	if (size == 0) { throw new NoSuchElementException (); }
+	return entries[0];
+    }
+
+    Object removeFirst () {
+	if (size == 0) { throw new NoSuchElementException (); }
+	final Object result = entries[0];
+	final int newSize = size - 1;
+	final long lastPriority = priorities[newSize];
+	final Object lastEntry = entries[newSize];
+	entries[newSize] = null;
+	if (newSize > 0) { siftDown (0, lastPriority, lastEntry, newSize); }
+	size = newSize;
+	return result;
+    }
+
+    int size () {
+	return size;
+    }
+
+    public String toString () {
+	final StringBuffer result = new StringBuffer ("LongHeap { size=" + size);
+	for (int i=0; i < size; i++) {
+	    result.append (", heap[" + i + "]=" + priorities[i] + ":" + entries[i]);
+	}
+	result.append (" }");
+	return result.toString ();
+    }
+
+}
@@ -0,0 +1,102 @@
+package ajeffrey.teaching.util.priority;
+
+import ajeffrey.teaching.util.time.TimeoutException;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An implementation of long priority queues as a binary heap.
+ * This is the same as the heap priority queue, except that the
+ * priorities are kept in a long[] array, next to a parallel array
+ * of entries.  Comparing priorities is just comparing longs, so there
+ * is no boxing and no calls to <code>compareTo</code>.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface LongHeapPriorityQueue {
+
+    /**
+     * A factory for building long heap priority queues.
+     */
+    LongPriorityQueueFactory factory = new LongHeapPQFactory ();
+
+}
+
+class LongHeapPQFactory implements LongPriorityQueueFactory {
+
+    public LongPriorityQueue build () { return new LongHeapPQ (); }
+
+}
+
+class LongHeapPQ implements LongPriorityQueue {
+
+    protected final ReentrantLock lock = new ReentrantLock ();
+    protected final Condition notEmpty = lock.newCondition ();
+    protected final LongHeap heap = new LongHeap ();
+
+    public void add (final long priority, final Object entry) {
+	if (entry == null) { throw new IllegalArgumentException (); }
+	lock.lock ();
+	try {
+	    heap.add (priority, entry);
+	    notEmpty.signal ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public Object get () throws InterruptedException {
+	lock.lockInterruptibly ();
+	try {
+	    while (heap.size () == 0) { notEmpty.await (); }
+	    return heap.removeFirst ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public Object get (final long timeout) throws InterruptedException, TimeoutException {
+	lock.lockInterruptibly ();
+	try {
+	    long delay = TimeUnit.MILLISECONDS.toNanos (timeout);
+	    while (heap.size () == 0) {
+		if (delay <= 0) { throw new TimeoutException (); }
+		delay = notEmpty.awaitNanos (delay);
+	    }
+	    return heap.removeFirst ();
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int drainTo (final Collection sink, final int maxEntries) {
+	lock.lock ();
+	try {
+	    int count = 0;
+	    while (count < maxEntries && heap.size () > 0) {
+		sink.add (heap.removeFirst ());
+		count++;
+	    }
+	    return count;
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int size () {
+	return heap.size ();
+    }
+
+    public String toString () {
+	lock.lock ();
+	try {
+	    return "LongHeapPQ { " + heap + " }";
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+}
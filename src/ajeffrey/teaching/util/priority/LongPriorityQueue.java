@@ -0,0 +1,64 @@
+package ajeffrey.teaching.util.priority;
+
+import ajeffrey.teaching.util.time.TimeoutException;
+
+import java.util.Collection;
+
+/**
+ * An interface for priority queues whose priorities are longs,
+ * such as deadlines or timestamps.
+ * A long priority queue has two methods: add (which adds a new entry
+ * with a given priority into the queue) and get (which gets the entry
+ * with the highest priority from the queue).  The highest priority
+ * is the <em>lowest</em> number, so that a queue of deadlines gives
+ * the earliest deadline first.  If the queue is empty, then get ()
+ * will block.
+ * <p>Unlike PriorityQueue, the entries do not need to implement
+ * Comparable, and priorities are never boxed.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface LongPriorityQueue {
+
+    /**
+     * Add a new entry into the queue.
+     * @param priority The priority of the entry (lower is higher priority)
+     * @param entry The entry to add
+     */
+    void add(long priority, Object entry);
+
+    /**
+     * Get the highest priority entry out of the queue.
+     * Blocks if the queue is empty.
+     * @return the highest priority entry in the queue
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    Object get() throws InterruptedException;
+
+    /**
+     * Get the highest priority entry out of the queue.
+     * Blocks if the queue is empty, but times out.
+     * @param timeout the time in milliseconds to wait
+     * @return the highest priority entry in the queue
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    Object get(long timeout) throws InterruptedException, TimeoutException;
+
+    /**
+     * Move the highest priority entries out of the queue and into
+     * a collection, in priority order.  Never blocks.
+     * @param sink the collection to add the entries to
+     * @param maxEntries the largest number of entries to move
+     * @return the number of entries moved
+     */
+    int drainTo(Collection sink, int maxEntries);
+
+    /**
+     * The number of entries in the queue.
+     * @return the number of entries in the queue.
+     */
+    int size();
+
+}
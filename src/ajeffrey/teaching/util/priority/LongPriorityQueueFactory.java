@@ -0,0 +1,16 @@
+package ajeffrey.teaching.util.priority;
+
+/**
+ * A factory for building long priority queues.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface LongPriorityQueueFactory {
+
+    /**
+     * Build a new long priority queue.
+     * @return a new long priority queue.
+     */
+    LongPriorityQueue build();
+
+}
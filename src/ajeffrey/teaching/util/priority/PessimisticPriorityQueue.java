@@ -4,8 +4,16 @@ import ajeffrey.teaching.util.list.ImmutableList;
 import ajeffrey.teaching.debug.Debug;
 import ajeffrey.teaching.util.time.TimeoutException;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * A pessimistic implementation of priority queues.
+ * Blocked consumers wait on a condition queue, and each add wakes
+ * exactly one of them, rather than every waiting consumer.
  * @author Alan Jeffrey
  * @version 1.0.1
  */
@@ -26,84 +34,211 @@ class PessimisticPQFactory implements PriorityQueueFactory {
 
 class PessimisticPQ implements PriorityQueue {
 
-    protected final Object lock = new Object ();
-    protected ImmutableList contents = ImmutableList.empty;
+    protected final ReentrantLock lock = new ReentrantLock ();
+    protected final Condition notEmpty = lock.newCondition ();
+    // Volatile, so size () can read the (immutable) list without the lock
+    protected volatile ImmutableList contents = ImmutableList.empty;
 
     protected ImmutableList insert (final Comparable element, final ImmutableList list) {
-	Debug.out.println ("PessimisticPQ.insert: Starting");
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.insert: Starting"); }
 	if (list.size () == 0) {
-	    Debug.out.println ("PessimisticPQ.insert: List is empty");
-	    Debug.out.println ("PessimisticPQ.insert: Returning");
+	    if (Debug.enabled) {
+		Debug.out.println ("PessimisticPQ.insert: List is empty");
+		Debug.out.println ("PessimisticPQ.insert: Returning");
+	    }
 	    return list.cons (element);
 	} else if (element.compareTo (list.head ()) <= 0) {
-	    Debug.out.println ("PessimisticPQ.insert: element <= " + list.head ());
-	    Debug.out.println ("PessimisticPQ.insert: Returning");
+	    if (Debug.enabled) {
+		Debug.out.println ("PessimisticPQ.insert: element <= " + list.head ());
+		Debug.out.println ("PessimisticPQ.insert: Returning");
+	    }
 	    return list.cons (element);
 	} else {
-	    Debug.out.println ("PessimisticPQ.insert: element > " + list.head ());
-	    Debug.out.println ("PessimisticPQ.insert: Recursing");
+	    if (Debug.enabled) {
+		Debug.out.println ("PessimisticPQ.insert: element > " + list.head ());
+		Debug.out.println ("PessimisticPQ.insert: Recursing");
+	    }
 	    return insert (element, list.tail ()).cons (list.head ());
 	}
     }
 
+    // Merges a sorted array into a sorted list in one pass, rather than
+    // inserting each element, which would be quadratic.  As with insert,
+    // the tail of the list after the last new element is shared.
+    protected ImmutableList merge (final Comparable[] sorted, final ImmutableList list) {
+	final Object[] prefix = new Object[sorted.length + list.size ()];
+	ImmutableList rest = list;
+	int i = 0;
+	int k = 0;
+	while (i < sorted.length) {
+	    if (rest.size () == 0 || sorted[i].compareTo (rest.head ()) <= 0) {
+		prefix[k++] = sorted[i++];
+	    } else {
+		prefix[k++] = rest.head ();
+		rest = rest.tail ();
+	    }
+	}
+	while (k > 0) { rest = rest.cons (prefix[--k]); }
+	return rest;
+    }
+
+    // Only called with the lock held
+    protected int drain (final Collection sink, final int maxEntries) {
+	int count = 0;
+	while (count < maxEntries && contents.size () > 0) {
+	    sink.add (removeFirst ());
+	    count++;
+	}
+	// If we left entries behind, make sure another consumer hears about them
+	if (contents.size () > 0) { notEmpty.signal (); }
+	return count;
+    }
+
+    // Only called with the lock held, and when the queue is non-empty
+    protected Comparable removeFirst () {
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.get: Calling contents.head"); }
+	final Comparable result = (Comparable)(contents.head ());
+	contents = contents.tail ();
+	if (Debug.enabled) {
+	    Debug.out.println ("PessimisticPQ.get: contents = " + contents);
+	    Debug.out.println ("PessimisticPQ.get: Returning " + result);
+	}
+	return result;
+    }
+
     public void add (final Comparable element) {
-	Debug.out.println ("PessimisticPQ.add: Starting");
-	Debug.out.println ("PessimisticPQ.add: Grabbing lock...");
-	synchronized (lock) {
-	    Debug.out.println ("PessimisticPQ.add: Adding " + element + " to " + contents);
+	if (Debug.enabled) {
+	    Debug.out.println ("PessimisticPQ.add: Starting");
+	    Debug.out.println ("PessimisticPQ.add: Grabbing lock...");
+	}
+	lock.lock ();
+	try {
+	    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.add: Adding " + element + " to " + contents); }
 	    contents = insert (element, contents);
-	    Debug.out.println ("PessimisticPQ.add: Calling notifyAll...");
-	    lock.notifyAll ();
-	    Debug.out.println ("PessimisticPQ.add: Releasing lock...");
+	    // One new entry, so one consumer needs to wake up
+	    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.add: Calling signal..."); }
+	    notEmpty.signal ();
+	    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.add: Releasing lock..."); }
+	} finally {
+	    lock.unlock ();
+	}
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.add: Returning"); }
+    }
+
+    public void addAll (final Comparable[] entries) {
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.addAll: Starting"); }
+	final Comparable[] sorted = entries.clone ();
+	Arrays.sort (sorted);
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.addAll: Grabbing lock..."); }
+	lock.lock ();
+	try {
+	    contents = merge (sorted, contents);
+	    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.addAll: contents = " + contents); }
+	    for (int i=0; i < sorted.length; i++) { notEmpty.signal (); }
+	    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.addAll: Releasing lock..."); }
+	} finally {
+	    lock.unlock ();
+	}
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.addAll: Returning"); }
+    }
+
+    public int drainTo (final Collection sink, final int maxEntries) {
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.drainTo: Starting"); }
+	lock.lock ();
+	try {
+	    return drain (sink, maxEntries);
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int getAll (final Collection sink, final int maxEntries) throws InterruptedException {
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.getAll: Starting"); }
+	if (maxEntries <= 0) { return 0; }
+	lock.lockInterruptibly ();
+	try {
+	    while (contents.size () == 0) { 
+		if (Debug.enabled) { Debug.out.println ("PessimisticPQ.getAll: Waiting..."); }
+		notEmpty.await (); 
+		if (Debug.enabled) { Debug.out.println ("PessimisticPQ.getAll: Woken up"); }
+	    }
+	    return drain (sink, maxEntries);
+	} finally {
+	    lock.unlock ();
+	}
+    }
+
+    public int getAll (final Collection sink, final int maxEntries, final long timeout) 
+	throws InterruptedException, TimeoutException 
+    {
+	if (Debug.enabled) { Debug.out.println ("PessimisticPQ.getAll: Starting"); }
+	if (maxEntries <= 0) { return 0; }
+	lock.lockInterruptibly ();
+	try {
+	    long delay = TimeUnit.MILLISECONDS.toNanos (timeout);
+	    while (contents.size () == 0) { 
+		if (delay <= 0) {
+		    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.getAll: Timeout"); }
+		    throw new TimeoutException ();
+		}
+		if (Debug.enabled) { Debug.out.println ("PessimisticPQ.getAll: Waiting for " + delay + "ns"); }
+		delay = notEmpty.awaitNanos (delay); 
+		if (Debug.enabled) { Debug.out.println ("PessimisticPQ.getAll: Woken up"); }
+	    }
+	    return drain (sink, maxEntries);
+	} finally {
+	    lock.unlock ();
 	}
-	Debug.out.println ("PessimisticPQ.add: Returning");
     }
 
     public Comparable get () throws InterruptedException {
-	Debug.out.println ("PessimisticPQ.get: Starting");
-	Debug.out.println ("PessimisticPQ.get: Grabbing lock...");
-	synchronized (lock) {
-	    Debug.out.println ("PessimisticPQ.get: contents = " + contents);
+	if (Debug.enabled) {
+	    Debug.out.println ("PessimisticPQ.get: Starting");
+	    Debug.out.println ("PessimisticPQ.get: Grabbing lock...");
+	}
+	lock.lockInterruptibly ();
+	try {
+	    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.get: contents = " + contents); }
 	    while (contents.size () == 0) { 
-		Debug.out.println ("PessimisticPQ.get: Waiting...");
-		lock.wait (); 
-		Debug.out.println ("PessimisticPQ.get: Woken up");
-		Debug.out.println ("PessimisticPQ.get: contents = " + contents);
+		if (Debug.enabled) { Debug.out.println ("PessimisticPQ.get: Waiting..."); }
+		notEmpty.await (); 
+		if (Debug.enabled) {
+		    Debug.out.println ("PessimisticPQ.get: Woken up");
+		    Debug.out.println ("PessimisticPQ.get: contents = " + contents);
+		}
 	    }
-	    Debug.out.println ("PessimisticPQ.get: Calling contents.head");
-            Comparable result = (Comparable)(contents.head ());
-	    contents = contents.tail ();
-	    Debug.out.println ("PessimisticPQ.get: contents = " + contents);
-	    Debug.out.println ("PessimisticPQ.get: Returning " + result);
-	    return result;
+	    return removeFirst ();
+	} finally {
+	    lock.unlock ();
 	}
     }
 
     public Comparable get (final long timeout) throws InterruptedException, TimeoutException {
-	Debug.out.println ("PessimisticPQ.get: Starting");
-	Debug.out.println ("PessimisticPQ.get: Grabbing lock...");
-	synchronized (lock) {
-	    Debug.out.println ("PessimisticPQ.get: contents = " + contents);
-	    final long endTime = System.currentTimeMillis () + timeout;
-	    Debug.out.println ("PessimisticPQ.get: endTime = " + endTime);
+	if (Debug.enabled) {
+	    Debug.out.println ("PessimisticPQ.get: Starting");
+	    Debug.out.println ("PessimisticPQ.get: Grabbing lock...");
+	}
+	lock.lockInterruptibly ();
+	try {
+	    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.get: contents = " + contents); }
+	    // Monotonic, so the timeout is immune to wall-clock changes
+	    long delay = TimeUnit.MILLISECONDS.toNanos (timeout);
 	    while (contents.size () == 0) { 
-		final long delay = endTime - System.currentTimeMillis ();
 		if (delay > 0) {
-		    Debug.out.println ("PessimisticPQ.get: Waiting for " + delay);
-		    lock.wait (delay); 
-		    Debug.out.println ("PessimisticPQ.get: Woken up");
-		    Debug.out.println ("PessimisticPQ.get: contents = " + contents);
+		    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.get: Waiting for " + delay + "ns"); }
+		    delay = notEmpty.awaitNanos (delay); 
+		    if (Debug.enabled) {
+			Debug.out.println ("PessimisticPQ.get: Woken up");
+			Debug.out.println ("PessimisticPQ.get: contents = " + contents);
+		    }
 		} else {
-		    Debug.out.println ("PessimisticPQ.get: Timeout");
+		    if (Debug.enabled) { Debug.out.println ("PessimisticPQ.get: Timeout"); }
 		    throw new TimeoutException ();
 		}
 	    }
-	    Debug.out.println ("PessimisticPQ.get: Calling contents.head");
-            Comparable result = (Comparable)(contents.head ());
-	    contents = contents.tail ();
-	    Debug.out.println ("PessimisticPQ.get: contents = " + contents);
-	    Debug.out.println ("PessimisticPQ.get: Returning " + result);
-	    return result;
+	    return removeFirst ();
+	} finally {
+	    lock.unlock ();
 	}
     }
 
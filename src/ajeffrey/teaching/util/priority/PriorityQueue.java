@@ -2,6 +2,8 @@ package ajeffrey.teaching.util.priority;
 
 import ajeffrey.teaching.util.time.TimeoutException;
 
+import java.util.Collection;
+
 /**
  * An interface for priority queues.
  * A priority queue has two methods: add (which adds a new entry into
@@ -9,6 +11,8 @@ import ajeffrey.teaching.util.time.TimeoutException;
  * the queue).  If the queue is empty, then get () will block.
  * The entries should implement Comparable, to determine their priority
  * order.
+ * There are also batch versions of add and get, which add or remove
+ * many entries while only acquiring the queue once.
  * @author Alan Jeffrey
  * @version 1.0.1
  */
@@ -39,6 +43,51 @@ public interface PriorityQueue {
      */
     Comparable get(long timeout) throws InterruptedException, TimeoutException;
 
+    /**
+     * Add many new entries into the queue.
+     * @param entries The entries to add
+     */
+    void addAll(Comparable[] entries);
+
+    /**
+     * Move the highest priority entries out of the queue and into
+     * a collection, in priority order.  Never blocks, so may move
+     * no entries at all.
+     * @param sink the collection to add the entries to
+     * @param maxEntries the largest number of entries to move
+     * @return the number of entries moved
+     */
+    int drainTo(Collection sink, int maxEntries);
+
+    /**
+     * Move the highest priority entries out of the queue and into
+     * a collection, in priority order.
+     * Blocks if the queue is empty, then moves as many entries as are
+     * available, up to the limit.
+     * @param sink the collection to add the entries to
+     * @param maxEntries the largest number of entries to move
+     * @return the number of entries moved, which is at least one
+     *   unless maxEntries is not positive
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    int getAll(Collection sink, int maxEntries) throws InterruptedException;
+
+    /**
+     * Move the highest priority entries out of the queue and into
+     * a collection, in priority order.
+     * Blocks if the queue is empty, but times out.
+     * @param sink the collection to add the entries to
+     * @param maxEntries the largest number of entries to move
+     * @param timeout the time in milliseconds to wait
+     * @return the number of entries moved, which is at least one
+     *   unless maxEntries is not positive
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while blocking
+     */
+    int getAll(Collection sink, int maxEntries, long timeout) 
+	throws InterruptedException, TimeoutException;
+
     /**
      * The number of entries in the queue.
      * @return the number of entries in the queue.
@@ -0,0 +1,203 @@
+package ajeffrey.teaching.util.priority;
+
+import ajeffrey.teaching.util.time.TimeoutException;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An optimistic implementation of priority queues, built on a
+ * lock-free skip list (<code>java.util.concurrent.ConcurrentSkipListSet</code>).
+ * Adding and removing entries are compare-and-set operations on the
+ * skip list, so producers and consumers do not serialize on a lock,
+ * and concurrent adds to different parts of the list proceed in
+ * parallel.  The only lock is used to park consumers when the queue
+ * is truly empty, and producers only take it if a consumer is parked.
+ * <p>Entries which compare equal are all kept, but may come out in
+ * any order.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface SkipListPriorityQueue {
+
+    /**
+     * A factory for building skip-list priority queues.
+     */
+    PriorityQueueFactory factory = new SkipListPQFactory ();
+
+}
+
+class SkipListPQFactory implements PriorityQueueFactory {
+
+    public PriorityQueue build () { return new SkipListPQ (); }
+
+}
+
+/**
+ * An entry in the skip list.  Since the skip list is a set, entries
+ * which compare equal are told apart by the thread which added them
+ * and a per-thread sequence number, which needs no shared counter.
+ */
+class SkipListPQEntry implements Comparable {
+
+    static final ThreadLocal sequences = new ThreadLocal () {
+	    protected Object initialValue () { return new long[1]; }
+	};
+
+    final Comparable element;
+    final long thread;
+    final long sequence;
+
+    SkipListPQEntry (final Comparable element) {
+	this.element = element;
+	this.thread = Thread.currentThread ().getId ();
+	this.sequence = ((long[])(sequences.get ()))[0]++;
+    }
+
+    public int compareTo (final Object o) {
+	final SkipListPQEntry that = (SkipListPQEntry)o;
+	final int result = element.compareTo (that.element);
+	if (result != 0) { return result; }
+	if (thread != that.thread) { return (thread < that.thread) ? -1 : 1; }
+	if (sequence != that.sequence) { return (sequence < that.sequence) ? -1 : 1; }
+	return 0;
+    }
+
+}
+
+class SkipListPQ implements PriorityQueue {
+
+    protected final ConcurrentSkipListSet contents = new ConcurrentSkipListSet ();
+    protected final LongAdder size = new LongAdder ();
+    protected final Object lock = new Object ();
+    protected volatile int waiters = 0;
+
+    protected Comparable poll () {
+	final SkipListPQEntry entry = (SkipListPQEntry)(contents.pollFirst ());
+	if (entry == null) { return null; }
+	size.decrement ();
+	return entry.element;
+    }
+
+    // Callers count entries in before inserting them, so that a
+    // consumer can never take one out (and count it out) first
+    protected void insert (final Comparable element) {
+	// The set only rejects an entry equal to one already there, which
+	// can only happen if a thread id has been reused.  Every entry
+	// has a new sequence number, so try again.
+	while (!contents.add (new SkipListPQEntry (element))) { }
+    }
+
+    public void add (final Comparable element) {
+	if (element == null) { throw new IllegalArgumentException (); }
+	size.increment ();
+	insert (element);
+	// Consumers register as waiters before re-checking the queue,
+	// and we add before checking for waiters, so no wakeup is lost.
+	if (waiters > 0) {
+	    synchronized (lock) { lock.notify (); }
+	}
+    }
+
+    public void addAll (final Comparable[] entries) {
+	for (int i=0; i < entries.length; i++) {
+	    if (entries[i] == null) { throw new IllegalArgumentException (); }
+	}
+	size.add (entries.length);
+	for (int i=0; i < entries.length; i++) {
+	    insert (entries[i]);
+	}
+	if (waiters > 0) {
+	    synchronized (lock) {
+		// One wakeup per entry, but no more than there are waiters
+		if (entries.length >= waiters) {
+		    lock.notifyAll ();
+		} else {
+		    for (int i=0; i < entries.length; i++) { lock.notify (); }
+		}
+	    }
+	}
+    }
+
+    public int drainTo (final Collection sink, final int maxEntries) {
+	int count = 0;
+	Comparable element;
+	while (count < maxEntries && (element = poll ()) != null) {
+	    sink.add (element);
+	    count++;
+	}
+	return count;
+    }
+
+    public int getAll (final Collection sink, final int maxEntries) throws InterruptedException {
+	if (maxEntries <= 0) { return 0; }
+	sink.add (get ());
+	return 1 + drainTo (sink, maxEntries - 1);
+    }
+
+    public int getAll (final Collection sink, final int maxEntries, final long timeout) 
+	throws InterruptedException, TimeoutException 
+    {
+	if (maxEntries <= 0) { return 0; }
+	sink.add (get (timeout));
+	return 1 + drainTo (sink, maxEntries - 1);
+    }
+
+    public Comparable get () throws InterruptedException {
+	Comparable result = poll ();
+	if (result != null) { return result; }
+	synchronized (lock) {
+	    waiters++;
+	    try {
+		while ((result = poll ()) == null) {
+		    try {
+			lock.wait ();
+		    } catch (final InterruptedException ex) {
+			// Pass on any notification we may have swallowed
+			lock.notify ();
+			throw ex;
+		    }
+		}
+	    } finally {
+		waiters--;
+	    }
+	}
+	return result;
+    }
+
+    public Comparable get (final long timeout) throws InterruptedException, TimeoutException {
+	Comparable result = poll ();
+	if (result != null) { return result; }
+	final long endTime = System.nanoTime () + timeout * 1000000L;
+	synchronized (lock) {
+	    waiters++;
+	    try {
+		while ((result = poll ()) == null) {
+		    final long delay = endTime - System.nanoTime ();
+		    if (delay <= 0) { throw new TimeoutException (); }
+		    try {
+			lock.wait (delay / 1000000L, (int)(delay % 1000000L));
+		    } catch (final InterruptedException ex) {
+			lock.notify ();
+			throw ex;
+		    }
+		}
+	    } finally {
+		waiters--;
+	    }
+	}
+	return result;
+    }
+
+    public int size () {
+	// The sum is not an atomic snapshot, so it can still briefly
+	// miss an increment which a decrement it sees depends on
+	return (int)(Math.max (0, size.sum ()));
+    }
+
+    public String toString () {
+	return "SkipListPQ { size=" + size () + " }";
+    }
+
+}
@@ -0,0 +1,30 @@
+package ajeffrey.teaching.util.time;
+
+/**
+ * A task which has been scheduled on a timing wheel.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ * @see TimingWheel
+ */
+public interface Timeout {
+
+    /**
+     * Cancel the task, if it has not already run.
+     * @return true if the task was cancelled, false if it had
+     *   already run or been cancelled
+     */
+    boolean cancel();
+
+    /**
+     * Whether the task has run (or is running).
+     * @return true if the deadline has passed and the task has run
+     */
+    boolean isExpired();
+
+    /**
+     * Whether the task was cancelled.
+     * @return true if the task was cancelled before it ran
+     */
+    boolean isCancelled();
+
+}
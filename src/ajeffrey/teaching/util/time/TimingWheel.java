@@ -0,0 +1,411 @@
+package ajeffrey.teaching.util.time;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A scheduler for very large numbers of timeouts.
+ * Tasks are kept in a hierarchy of wheels, each of which is an array
+ * of buckets, where a bucket is a doubly-linked list of the tasks
+ * due in one tick (for the innermost wheel) or one turn of the
+ * next wheel in (for the outer wheels).  Scheduling a task puts it
+ * in a bucket, and cancelling it unlinks it, so both are O(1)
+ * whatever the number of tasks, unlike a priority queue where they
+ * are O(log n).  As time passes, the buckets of the outer wheels are
+ * moved inwards, until the tasks reach the innermost wheel and run.
+ * <p>The wheels belong to a single ticker thread.  Other threads hand
+ * new and cancelled tasks to it through lock-free queues, so
+ * <code>schedule</code> and <code>cancel</code> never block.  Tasks
+ * are run on the ticker thread, so should be short: typically they
+ * just wake up another thread, as <code>sleep</code> does.  The
+ * ticker only wakes up for ticks where it has something to do: running
+ * the tasks in an inner bucket, or moving an outer bucket inwards.  It
+ * parks in between, and does not wake up at all when there are no
+ * tasks.  Scheduling a task which is due before the ticker would next
+ * wake up wakes it early.</p>
+ * <p>Tasks run in the first tick at or after their deadline, so
+ * may be up to one tick late, but are never early.</p>
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface TimingWheel {
+
+    /**
+     * Schedule a task to be run after a delay.
+     * @param delay the delay in nanoseconds
+     * @param task the task to run on the ticker thread
+     * @return a handle which can be used to cancel the task
+     * @exception IllegalStateException thrown if the wheel is stopped
+     */
+    Timeout schedule(long delay, Runnable task);
+
+    /**
+     * Block the current thread for a delay, using the wheel to
+     * wake it up.  Like <code>Thread.sleep</code>, even a zero
+     * delay checks for interrupts.
+     * @param delay the delay in nanoseconds
+     * @exception InterruptedException thrown if the thread is interrupted
+     *   while sleeping
+     * @exception IllegalStateException thrown if the wheel is stopped,
+     *   either before or while the thread is sleeping
+     */
+    void sleep(long delay) throws InterruptedException;
+
+    /**
+     * The resolution of the wheel.
+     * @return the length of one tick in nanoseconds
+     */
+    long tick();
+
+    /**
+     * The number of tasks which are scheduled, and have neither
+     * run nor been cancelled.
+     * @return the number of pending tasks
+     */
+    int size();
+
+    /**
+     * Stop the ticker thread.  Any pending tasks will never run, and
+     * are cancelled, and any threads blocked in <code>sleep</code>
+     * are woken up.
+     */
+    void stop();
+
+    /**
+     * A factory for building timing wheels.
+     */
+    TimingWheelFactory factory = new TimingWheelFactoryImpl ();
+
+}
+
+class TimingWheelFactoryImpl implements TimingWheelFactory {
+
+    public TimingWheel build (final long tick) {
+	if (tick <= 0) { throw new IllegalArgumentException ("tick = " + tick); }
+	final TimingWheelImpl result = new TimingWheelImpl (tick);
+	result.ticker.start ();
+	return result;
+    }
+
+}
+
+/**
+ * A scheduled task, which is also a node in a bucket's list.
+ * The links are only touched by the ticker thread: the state
+ * is the only field shared with other threads.
+ */
+class TimingWheelTimeout implements Timeout {
+
+    static final int PENDING = 0;
+    static final int EXPIRED = 1;
+    static final int CANCELLED = 2;
+
+    final TimingWheelImpl wheel;
+    final Runnable task;
+    final long deadline;
+    final AtomicInteger state = new AtomicInteger (PENDING);
+    TimingWheelTimeout prev;
+    TimingWheelTimeout next;
+
+    TimingWheelTimeout (final TimingWheelImpl wheel, final long deadline, final Runnable task) {
+	this.wheel = wheel;
+	this.deadline = deadline;
+	this.task = task;
+    }
+
+    public boolean cancel () {
+	if (state.compareAndSet (PENDING, CANCELLED)) {
+	    wheel.cancelled (this);
+	    return true;
+	} else {
+	    return false;
+	}
+    }
+
+    public boolean isExpired () { return state.get () == EXPIRED; }
+
+    public boolean isCancelled () { return state.get () == CANCELLED; }
+
+}
+
+/**
+ * The task which wakes up a thread blocked in sleep.  The wheel
+ * recognizes it, so it can wake the thread if the wheel stops.
+ */
+class TimingWheelWakeup implements Runnable {
+
+    final Thread thread;
+
+    TimingWheelWakeup (final Thread thread) {
+	this.thread = thread;
+    }
+
+    public void run () {
+	LockSupport.unpark (thread);
+    }
+
+}
+
+class TimingWheelImpl implements TimingWheel, Runnable {
+
+    // Each wheel has 64 buckets, and there are 5 wheels, so tasks up
+    // to 2^30 ticks away (12 days at 1ms a tick) are placed exactly.
+    // Tasks further away than that wait in the outermost wheel until
+    // they are close enough.
+    static final int BITS = 6;
+    static final int BUCKETS = 1 << BITS;
+    static final int MASK = BUCKETS - 1;
+    static final int WHEELS = 5;
+
+    protected final long tick;
+    protected final long origin = System.nanoTime ();
+    protected final Thread ticker = new Thread (this, "TimingWheel");
+    protected final AtomicInteger pending = new AtomicInteger (0);
+    protected final ConcurrentLinkedQueue scheduledQueue = new ConcurrentLinkedQueue ();
+    protected final ConcurrentLinkedQueue cancelledQueue = new ConcurrentLinkedQueue ();
+    protected volatile boolean stopped = false;
+    // When the ticker will next wake up, in nanoseconds from origin,
+    // or Long.MAX_VALUE if it is parked until there is something to do
+    protected volatile long wakeAt = Long.MAX_VALUE;
+
+    // The following are only touched by the ticker thread.
+    // Each bucket is a circular list with a sentinel node.
+    protected final TimingWheelTimeout[][] buckets = new TimingWheelTimeout[WHEELS][BUCKETS];
+    // The next tick to be processed
+    protected long base = 0;
+    // The number of timeouts in the buckets
+    protected long live = 0;
+
+    TimingWheelImpl (final long tick) {
+	this.tick = tick;
+	for (int i=0; i < WHEELS; i++) {
+	    for (int j=0; j < BUCKETS; j++) {
+		final TimingWheelTimeout sentinel = new TimingWheelTimeout (this, 0, null);
+		sentinel.prev = sentinel;
+		sentinel.next = sentinel;
+		buckets[i][j] = sentinel;
+	    }
+	}
+	ticker.setDaemon (true);
+    }
+
+    public Timeout schedule (final long delay, final Runnable task) {
+	if (stopped) { throw new IllegalStateException ("TimingWheel stopped"); }
+	final long now = System.nanoTime () - origin;
+	// Saturate rather than overflow, so a huge delay means forever
+	final long deadline = (delay > Long.MAX_VALUE - now) ? Long.MAX_VALUE : now + Math.max (delay, 0);
+	final TimingWheelTimeout result = new TimingWheelTimeout (this, deadline, task);
+	pending.incrementAndGet ();
+	scheduledQueue.add (result);
+	// The ticker sets wakeAt before checking the queue, and we add to
+	// the queue before checking wakeAt, so either it sees the new
+	// timeout or we see when it is going to wake up
+	if (deadline < wakeAt) { LockSupport.unpark (ticker); }
+	// If the ticker has already stopped, it may never see the timeout
+	if (stopped) {
+	    abandon (result);
+	    throw new IllegalStateException ("TimingWheel stopped");
+	}
+	return result;
+    }
+
+    public void sleep (final long delay) throws InterruptedException {
+	if (delay > 0) {
+	    final Timeout timeout = schedule (delay, new TimingWheelWakeup (Thread.currentThread ()));
+	    while (!timeout.isExpired ()) {
+		LockSupport.park (this);
+		if (Thread.interrupted ()) {
+		    timeout.cancel ();
+		    throw new InterruptedException ();
+		}
+		// Only stop () cancels a sleeper's timeout for it
+		if (timeout.isCancelled ()) { throw new IllegalStateException ("TimingWheel stopped"); }
+	    }
+	} else if (Thread.interrupted ()) {
+	    throw new InterruptedException ();
+	}
+    }
+
+    public long tick () {
+	return tick;
+    }
+
+    public int size () {
+	return pending.get ();
+    }
+
+    public void stop () {
+	stopped = true;
+	LockSupport.unpark (ticker);
+    }
+
+    // Called by a thread which has just cancelled a timeout
+    void cancelled (final TimingWheelTimeout timeout) {
+	pending.decrementAndGet ();
+	cancelledQueue.add (timeout);
+    }
+
+    // Cancel a timeout because the wheel has stopped, and if a thread
+    // is sleeping on it, wake the thread up
+    protected void abandon (final TimingWheelTimeout timeout) {
+	if (timeout.state.compareAndSet (TimingWheelTimeout.PENDING, TimingWheelTimeout.CANCELLED)) {
+	    pending.decrementAndGet ();
+	    if (timeout.task instanceof TimingWheelWakeup) {
+		LockSupport.unpark (((TimingWheelWakeup)(timeout.task)).thread);
+	    }
+	}
+    }
+
+    public void run () {
+	while (!stopped) {
+	    TimingWheelTimeout timeout;
+	    while ((timeout = (TimingWheelTimeout)(cancelledQueue.poll ())) != null) {
+		// It may have been cancelled before it was placed
+		if (timeout.prev != null) { 
+		    unlink (timeout); 
+		    live--;
+		}
+	    }
+	    if (live == 0) {
+		// Every bucket is empty, so rather than turning the wheels
+		// through every tick we were parked for, jump to the
+		// current tick before placing any new timeouts
+		base = Math.max (base, (System.nanoTime () - origin) / tick);
+	    }
+	    while ((timeout = (TimingWheelTimeout)(scheduledQueue.poll ())) != null) {
+		// It may have been cancelled before we got to it
+		if (timeout.state.get () == TimingWheelTimeout.PENDING) { 
+		    place (timeout); 
+		    live++;
+		}
+	    }
+	    final long now = (System.nanoTime () - origin) / tick;
+	    // Skip the ticks with nothing to do, rather than turning the
+	    // wheels through every one of them
+	    long next = nextTick ();
+	    while (next <= now) {
+		base = next;
+		process ();
+		base = base + 1;
+		next = nextTick ();
+	    }
+	    wakeAt = (next > Long.MAX_VALUE / tick) ? Long.MAX_VALUE : next * tick;
+	    if (scheduledQueue.isEmpty () && !stopped) {
+		if (wakeAt == Long.MAX_VALUE) {
+		    LockSupport.park (this);
+		} else {
+		    LockSupport.parkNanos (this, wakeAt - (System.nanoTime () - origin));
+		}
+	    }
+	}
+	// Nothing will ever run now, so cancel everything, waking sleepers
+	wakeAt = Long.MIN_VALUE;
+	for (int i=0; i < WHEELS; i++) {
+	    for (int j=0; j < BUCKETS; j++) {
+		final TimingWheelTimeout sentinel = buckets[i][j];
+		while (sentinel.next != sentinel) {
+		    final TimingWheelTimeout timeout = sentinel.next;
+		    unlink (timeout);
+		    abandon (timeout);
+		}
+	    }
+	}
+	live = 0;
+	TimingWheelTimeout timeout;
+	while ((timeout = (TimingWheelTimeout)(scheduledQueue.poll ())) != null) { abandon (timeout); }
+	cancelledQueue.clear ();
+    }
+
+    // The first tick at or after base for which process () has anything
+    // to do, or Long.MAX_VALUE if the wheels are empty.  Only the inner
+    // wheel's buckets for the next BUCKETS ticks can hold anything, and
+    // an outer wheel only moves a bucket inwards when base reaches a
+    // multiple of its turn, so only a few buckets need checking.
+    protected long nextTick () {
+	if (live == 0) { return Long.MAX_VALUE; }
+	long result = Long.MAX_VALUE;
+	for (int i=0; i < BUCKETS; i++) {
+	    final TimingWheelTimeout sentinel = buckets[0][(int)((base + i) & MASK)];
+	    if (sentinel.next != sentinel) {
+		result = base + i;
+		break;
+	    }
+	}
+	for (int wheel = 1; wheel < WHEELS; wheel++) {
+	    final int shift = BITS * wheel;
+	    final long turn = 1L << shift;
+	    // The first tick at or after base when this wheel turns
+	    long when = ((base + turn - 1) >>> shift) << shift;
+	    for (int i=0; i < BUCKETS && when < result; i++) {
+		final TimingWheelTimeout sentinel = buckets[wheel][(int)((when >>> shift) & MASK)];
+		if (sentinel.next != sentinel) {
+		    result = when;
+		    break;
+		}
+		when = when + turn;
+	    }
+	}
+	return result;
+    }
+
+    // Put a timeout into the bucket for its deadline, relative to base
+    protected void place (final TimingWheelTimeout timeout) {
+	// Round the deadline up to a tick, without overflowing
+	final long ticks = timeout.deadline / tick + ((timeout.deadline % tick == 0) ? 0 : 1);
+	long when = Math.max (ticks, base);
+	final long distance = when - base;
+	int wheel = 0;
+	while (wheel < WHEELS - 1 && distance >= (1L << (BITS * (wheel + 1)))) { wheel++; }
+	if (distance >= (1L << (BITS * WHEELS))) {
+	    // Too far away: park it in the last bucket the outer wheel can reach
+	    when = base + (1L << (BITS * WHEELS)) - 1;
+	}
+	final TimingWheelTimeout sentinel = buckets[wheel][(int)((when >>> (BITS * wheel)) & MASK)];
+	timeout.prev = sentinel.prev;
+	timeout.next = sentinel;
+	sentinel.prev.next = timeout;
+	sentinel.prev = timeout;
+    }
+
+    protected void unlink (final TimingWheelTimeout timeout) {
+	timeout.prev.next = timeout.next;
+	timeout.next.prev = timeout.prev;
+	timeout.prev = null;
+	timeout.next = null;
+    }
+
+    // Process the tick at base: first move any outer buckets whose turn
+    // has come inwards, then run everything in the inner bucket.
+    protected void process () {
+	for (int wheel = 1; wheel < WHEELS; wheel++) {
+	    if ((base & ((1L << (BITS * wheel)) - 1)) != 0) { break; }
+	    final TimingWheelTimeout sentinel = buckets[wheel][(int)((base >>> (BITS * wheel)) & MASK)];
+	    while (sentinel.next != sentinel) {
+		final TimingWheelTimeout timeout = sentinel.next;
+		unlink (timeout);
+		place (timeout);
+	    }
+	}
+	final TimingWheelTimeout sentinel = buckets[0][(int)(base & MASK)];
+	while (sentinel.next != sentinel) {
+	    final TimingWheelTimeout timeout = sentinel.next;
+	    unlink (timeout);
+	    live--;
+	    if (timeout.state.compareAndSet (TimingWheelTimeout.PENDING, TimingWheelTimeout.EXPIRED)) {
+		pending.decrementAndGet ();
+		try {
+		    timeout.task.run ();
+		} catch (final RuntimeException ex) {
+		    // A broken task should not stop the wheel
+		    ticker.getUncaughtExceptionHandler ().uncaughtException (ticker, ex);
+		}
+	    }
+	}
+    }
+
+    public String toString () {
+	return "TimingWheel { tick=" + tick + "ns, pending=" + pending.get () + " }";
+    }
+
+}
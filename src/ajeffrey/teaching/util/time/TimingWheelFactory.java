@@ -0,0 +1,18 @@
+package ajeffrey.teaching.util.time;
+
+/**
+ * A factory for building timing wheels.
+ * @author Alan Jeffrey and Lea Middleton
+ * @version 1.0.1
+ */
+public interface TimingWheelFactory {
+
+    /**
+     * Build a new timing wheel, and start its ticker thread.
+     * @param tick the resolution of the wheel in nanoseconds
+     * @return a new timing wheel
+     * @exception IllegalArgumentException thrown if tick <= 0
+     */
+    TimingWheel build(long tick);
+
+}